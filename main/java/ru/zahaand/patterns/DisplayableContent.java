@@ -1,6 +1,7 @@
 package ru.zahaand.patterns;
 
 import ru.zahaand.patterns.composite.ContentComposite;
+import ru.zahaand.patterns.composite.RenderCache;
 import ru.zahaand.patterns.decorator.ContentDecorator;
 
 /**
@@ -19,4 +20,24 @@ import ru.zahaand.patterns.decorator.ContentDecorator;
 public interface DisplayableContent {
 
     void display();
+
+    /**
+     * Формирует текстовое представление элемента для отображения. В отличие от {@link #display()},
+     * не выполняет вывод, поэтому представления разных элементов можно формировать параллельно
+     * и собирать в нужном порядке.
+     *
+     * @return текстовое представление элемента
+     */
+    String render();
+
+    /**
+     * Возвращает кэш представления элемента. Группа связывает кэши дочерних элементов со своим кэшем,
+     * чтобы изменение элемента делало неактуальным представление группы. Элемент без кэша считается
+     * изменяющимся при каждом обращении, и представление содержащей его группы не кэшируется.
+     *
+     * @return кэш представления или {@code null}, если элемент не кэширует представление
+     */
+    default RenderCache getRenderCache() {
+        return null;
+    }
 }
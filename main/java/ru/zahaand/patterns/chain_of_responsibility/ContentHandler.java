@@ -1,6 +1,9 @@
 package ru.zahaand.patterns.chain_of_responsibility;
 
 import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.enums.ContentType;
+
+import java.util.Collection;
 
 /**
  * <h1>Паттерн Chain of Responsibility. Цепочка обязанностей.</h1>
@@ -33,10 +36,31 @@ import ru.zahaand.patterns.domain.Content;
  * В этом примере запрос на обработку контента передается от TextContentHandler к ImageContentHandler,
  * если первый не может обработать запрос. Это демонстрирует, как паттерн "Цепочка обязанностей" позволяет организовать
  * гибкую и масштабируемую систему обработки запросов.
+ *
+ * <p>Для большого количества типов контента вместо последовательного обхода цепочки следует использовать
+ * {@link ru.zahaand.patterns.chain_of_responsibility.impl.ContentHandlerPipeline}, который передает контент
+ * сразу обработчику его типа, определяемого методом {@link #getHandledType()}.
  */
 public interface ContentHandler {
 
     void setNext(ContentHandler handler);
 
     void handle(Content content);
+
+    /**
+     * @return тип контента, который обрабатывает этот обработчик
+     */
+    ContentType getHandledType();
+
+    /**
+     * Обрабатывает набор контента. Реализация по умолчанию вызывает {@link #handle(Content)} для каждого элемента;
+     * обработчики могут переопределить метод, чтобы использовать общие ресурсы для всего набора.
+     *
+     * @param contents контент для обработки
+     */
+    default void handleAll(Collection<? extends Content> contents) {
+        for (Content content : contents) {
+            handle(content);
+        }
+    }
 }
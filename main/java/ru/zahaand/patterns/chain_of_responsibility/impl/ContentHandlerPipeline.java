@@ -0,0 +1,101 @@
+package ru.zahaand.patterns.chain_of_responsibility.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.zahaand.patterns.chain_of_responsibility.ContentHandler;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.enums.ContentType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс {@code ContentHandlerPipeline} представляет собой скомпилированную цепочку обработчиков контента.
+ *
+ * <p>Вместо последовательного обхода цепочки через {@link ContentHandler#setNext(ContentHandler)} обработчики
+ * раскладываются в таблицу, индексированную порядковым номером {@link ContentType}, поэтому выбор обработчика
+ * выполняется за постоянное время и не зависит от количества обработчиков. Контент, для типа которого нет
+ * обработчика, пропускается, как и в конце обычной цепочки.
+ *
+ * <p>Пакетная обработка {@link #handleAll(Collection)} группирует контент по типу и передает каждую группу
+ * ее обработчику целиком через {@link ContentHandler#handleAll(Collection)}. Порядок сохраняется внутри группы
+ * одного типа, но не между группами.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     ContentHandlerPipeline pipeline = new ContentHandlerPipeline(List.of(new TextContentHandler(), new ImageContentHandler()));
+ *     pipeline.handle(textContent);
+ *     pipeline.handleAll(contents);
+ * </pre>
+ */
+@Slf4j
+@Component
+public class ContentHandlerPipeline {
+
+    private static final ContentType[] CONTENT_TYPES = ContentType.values();
+
+    private final ContentHandler[] handlersByType = new ContentHandler[CONTENT_TYPES.length];
+
+    /**
+     * @param handlers обработчики; для каждого типа контента допускается не более одного обработчика
+     */
+    public ContentHandlerPipeline(Collection<? extends ContentHandler> handlers) {
+        for (ContentHandler handler : handlers) {
+            ContentType type = handler.getHandledType();
+            if (type == null) {
+                throw new IllegalArgumentException("Handler has no content type: " + handler.getClass().getName());
+            }
+            if (handlersByType[type.ordinal()] != null) {
+                throw new IllegalArgumentException("Duplicate handler for content type: " + type);
+            }
+            handlersByType[type.ordinal()] = handler;
+        }
+    }
+
+    public static ContentHandlerPipeline of(ContentHandler... handlers) {
+        return new ContentHandlerPipeline(List.of(handlers));
+    }
+
+    /**
+     * Передает контент обработчику его типа.
+     *
+     * @param content контент для обработки
+     */
+    public void handle(Content content) {
+        ContentHandler handler = handlerFor(content.getContentType());
+        if (handler != null) {
+            handler.handle(content);
+        } else {
+            log.debug("No handler for content type {}", content.getContentType());
+        }
+    }
+
+    /**
+     * Группирует контент по типу и передает каждую группу ее обработчику.
+     *
+     * @param contents контент для обработки
+     */
+    public void handleAll(Collection<? extends Content> contents) {
+        Map<ContentType, List<Content>> contentsByType = new EnumMap<>(ContentType.class);
+        for (Content content : contents) {
+            ContentType type = content.getContentType();
+            if (handlerFor(type) == null) {
+                log.debug("No handler for content type {}", type);
+                continue;
+            }
+            contentsByType.computeIfAbsent(type, t -> new ArrayList<>()).add(content);
+        }
+
+        contentsByType.forEach((type, group) -> handlersByType[type.ordinal()].handleAll(group));
+    }
+
+    /**
+     * @return обработчик для типа контента или {@code null}, если обработчик не зарегистрирован
+     */
+    public ContentHandler handlerFor(ContentType type) {
+        return type == null ? null : handlersByType[type.ordinal()];
+    }
+}
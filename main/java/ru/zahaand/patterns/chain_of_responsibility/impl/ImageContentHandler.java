@@ -28,4 +28,9 @@ public class ImageContentHandler implements ContentHandler {
             next.handle(content);
         }
     }
+
+    @Override
+    public ContentType getHandledType() {
+        return ContentType.IMAGE;
+    }
 }
@@ -5,6 +5,9 @@ import org.springframework.stereotype.Component;
 import ru.zahaand.patterns.chain_of_responsibility.ContentHandler;
 import ru.zahaand.patterns.domain.Content;
 import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.enums.ContentType;
+
+import java.util.Collection;
 
 import static ru.zahaand.patterns.enums.ContentType.*;
 
@@ -12,6 +15,9 @@ import static ru.zahaand.patterns.enums.ContentType.*;
 @Component
 public class TextContentHandler implements ContentHandler {
 
+    private static final ThreadLocal<UpperCaseTextTransformer> TRANSFORMER =
+            ThreadLocal.withInitial(UpperCaseTextTransformer::new);
+
     private ContentHandler next;
 
     @Override
@@ -23,11 +29,39 @@ public class TextContentHandler implements ContentHandler {
     public void handle(Content content) {
         if (TEXT.equals(content.getContentType())) {
             log.info("TEXT content processing...");
-            TextContent textContent = (TextContent) content;
-            String processedText = textContent.getContent().toUpperCase();
-            textContent.setContent(processedText);
+            transform((TextContent) content, TRANSFORMER.get());
         } else if (next != null) {
             next.handle(content);
         }
     }
+
+    /**
+     * Обрабатывает набор контента, используя один буфер преобразования для всего набора.
+     * Контент другого типа передается следующему обработчику цепочки.
+     */
+    @Override
+    public void handleAll(Collection<? extends Content> contents) {
+        log.info("TEXT content batch processing, size: {}", contents.size());
+        UpperCaseTextTransformer transformer = TRANSFORMER.get();
+        for (Content content : contents) {
+            if (TEXT.equals(content.getContentType())) {
+                transform((TextContent) content, transformer);
+            } else if (next != null) {
+                next.handle(content);
+            }
+        }
+    }
+
+    @Override
+    public ContentType getHandledType() {
+        return TEXT;
+    }
+
+    private static void transform(TextContent textContent, UpperCaseTextTransformer transformer) {
+        String text = textContent.getContent();
+        String processedText = transformer.transform(text);
+        if (processedText != text) {
+            textContent.setContent(processedText);
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package ru.zahaand.patterns.chain_of_responsibility.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Класс {@code UpperCaseTextTransformer} переводит текст в верхний регистр с быстрым путем для ASCII и Latin-1.
+ *
+ * <p>Результат совпадает с {@link String#toUpperCase(Locale)}:
+ * <ul>
+ *     <li>Текст без строчных символов возвращается тем же экземпляром строки, без выделения памяти.</li>
+ *     <li>Текст из символов Latin-1 копируется в переиспользуемый буфер {@code byte[]} по байту на символ
+ *     и преобразуется одним проходом без ветвлений и без учета локали; выделяется только результирующая строка.</li>
+ *     <li>Символы за пределами Latin-1, символы {@code µ}, {@code ß} и {@code ÿ}, верхний регистр которых
+ *     не помещается в один символ Latin-1, а также локали с особыми правилами регистра (турецкая, азербайджанская,
+ *     литовская) обрабатываются полным преобразованием Unicode через {@link String#toUpperCase(Locale)}.</li>
+ * </ul>
+ *
+ * <p>Экземпляр хранит буфер и не потокобезопасен; для многопоточного использования следует создавать экземпляр
+ * на поток.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     UpperCaseTextTransformer transformer = new UpperCaseTextTransformer();
+ *     String upperCase = transformer.transform("Hello, World!");
+ * </pre>
+ */
+public final class UpperCaseTextTransformer {
+
+    /**
+     * Буфер большего размера не сохраняется между вызовами, чтобы единичный большой текст
+     * не удерживал память навсегда.
+     */
+    private static final int MAX_RETAINED_BUFFER_LENGTH = 64 * 1024;
+
+    private static final char MICRO_SIGN = 'µ';
+    private static final char SHARP_S = 'ß';
+    private static final char DIVISION_SIGN = '÷';
+    private static final char Y_WITH_DIAERESIS = 'ÿ';
+
+    private static final int CASE_OFFSET = 'a' - 'A';
+
+    private byte[] buffer = new byte[256];
+
+    /**
+     * Переводит текст в верхний регистр по правилам локали по умолчанию.
+     *
+     * @see String#toUpperCase()
+     */
+    public String transform(String text) {
+        return transform(text, Locale.getDefault());
+    }
+
+    /**
+     * Переводит текст в верхний регистр по правилам переданной локали.
+     *
+     * @param text   исходный текст
+     * @param locale локаль
+     * @return текст в верхнем регистре или тот же экземпляр, если текст не изменился
+     */
+    @SuppressWarnings("deprecation")
+    public String transform(String text, Locale locale) {
+        if (text == null) {
+            return null;
+        }
+
+        int length = text.length();
+        int first = -1;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= MICRO_SIGN && requiresFullCaseMapping(c)) {
+                return text.toUpperCase(locale);
+            }
+            if (first < 0 && isLowerCaseLatin1(c)) {
+                first = i;
+            }
+        }
+        if (first < 0) {
+            return text;
+        }
+        if (hasSpecialCasing(locale)) {
+            return text.toUpperCase(locale);
+        }
+
+        byte[] bytes = length <= buffer.length ? buffer : new byte[length];
+        text.getBytes(0, length, bytes, 0);
+        for (int i = first; i < length; i++) {
+            int c = bytes[i] & 0xFF;
+            boolean lowerCase = (c >= 'a' & c <= 'z') | (c >= 'à' & c != DIVISION_SIGN);
+            bytes[i] = (byte) (lowerCase ? c - CASE_OFFSET : c);
+        }
+
+        String result = new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+        if (bytes != buffer && length <= MAX_RETAINED_BUFFER_LENGTH) {
+            buffer = bytes;
+        }
+        return result;
+    }
+
+    private static boolean hasSpecialCasing(Locale locale) {
+        String language = locale.getLanguage();
+        return "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+    }
+
+    /**
+     * @return {@code true} для символов, верхний регистр которых не помещается в один символ Latin-1
+     */
+    private static boolean requiresFullCaseMapping(char c) {
+        return c > 0xFF || c == MICRO_SIGN || c == SHARP_S || c == Y_WITH_DIAERESIS;
+    }
+
+    private static boolean isLowerCaseLatin1(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'à' && c != DIVISION_SIGN);
+    }
+}
@@ -1,5 +1,9 @@
 package ru.zahaand.patterns.command;
 
+import ru.zahaand.patterns.service.ContentService;
+
+import java.util.UUID;
+
 /**
  * <h1>Паттерн Command. Команда.</h1>
  * Интерфейс ContentCommand определяет методы, необходимые для выполнения команд управления контентом.
@@ -30,4 +34,40 @@ package ru.zahaand.patterns.command;
 public interface ContentCommand {
 
     void execute();
+
+    /**
+     * @return идентификатор контента, к которому относится команда, или {@code null}, если команда не относится
+     * к одному контенту. Команды с одним идентификатором и хранилищем могут быть объединены
+     * {@link ContentCommandCoalescer}.
+     */
+    default UUID getContentId() {
+        return null;
+    }
+
+    /**
+     * @return хранилище, над которым выполняется команда, или {@code null}, если команда лишь сообщает о действии
+     */
+    default ContentService getReceiver() {
+        return null;
+    }
+
+    /**
+     * @return {@code true}, если команда изменяет хранилище; только такие команды записываются
+     * в {@link ContentCommandJournal}. Команды без хранилища лишь сообщают о действии.
+     */
+    default boolean isMutating() {
+        return false;
+    }
+
+    /**
+     * Возвращает команду, отменяющую действие этой команды. Для команд, изменяющих хранилище, вызывается
+     * после выполнения, когда сохранено состояние контента до изменения.
+     *
+     * @return обратная команда
+     * @throws UnsupportedOperationException если команда не поддерживает отмену
+     * @throws IllegalStateException         если отменять нечего
+     */
+    default ContentCommand inverse() {
+        throw new UnsupportedOperationException("Command cannot be undone: " + getClass().getSimpleName());
+    }
 }
@@ -0,0 +1,312 @@
+package ru.zahaand.patterns.command;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Класс {@code ContentCommandBatchExecutor} выполняет команды управления контентом асинхронно, пакетами,
+ * в отдельном рабочем потоке.
+ *
+ * <p>Команды от многих потоков попадают в ограниченную очередь. Рабочий поток забирает из очереди все накопившиеся
+ * команды (но не больше размера пакета), выполняет их по порядку и один раз на пакет вызывает обработчик фиксации
+ * (group commit), например сброс журнала на диск. Будущий результат каждой команды завершается только после
+ * фиксации пакета. Если очередь заполнена, {@link #submit(ContentCommand)} блокирует вызывающий поток,
+ * что ограничивает скорость поступления команд скоростью их выполнения.
+ *
+ * <p>Ошибка выполнения одной команды, в том числе {@link Error}, завершает с ошибкой только ее результат; ошибка
+ * фиксации завершает с ошибкой результаты всех команд пакета. Если рабочий поток все же завершился, исполнитель
+ * закрывается, а результаты всех ожидающих команд завершаются с ошибкой.
+ *
+ * <p>Перед выполнением избыточные команды пакета, относящиеся к одному контенту, объединяются
+ * {@link ContentCommandCoalescer}: например, добавление и удаление одного контента не выполняются вовсе,
+ * а из нескольких изменений выполняется только последнее. Результат отброшенной команды завершается вместе
+ * с результатом команды, которая ее поглотила, а результат взаимно уничтожившихся команд — после фиксации пакета.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (ContentCommandBatchExecutor executor = new ContentCommandBatchExecutor(1024, 64, commands -> journal.sync())) {
+ *         CompletableFuture&lt;Void&gt; result = executor.submit(new AddContentCommand(content));
+ *         result.join();
+ *     }
+ * </pre>
+ */
+@Slf4j
+public class ContentCommandBatchExecutor implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+
+    private static final Task SHUTDOWN = new Task(null);
+
+    private final BlockingQueue<Task> queue;
+    private final int maxBatchSize;
+    private final Consumer<List<ContentCommand>> groupCommit;
+    private final boolean coalescing;
+    private final Thread worker;
+
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * Постановка в очередь выполняется под блокировкой чтения, закрытие — под блокировкой записи, поэтому
+     * ни одна команда не попадает в очередь после признака остановки.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public ContentCommandBatchExecutor() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, commands -> {
+        });
+    }
+
+    /**
+     * @param capacity     емкость очереди команд
+     * @param maxBatchSize максимальное количество команд в пакете
+     * @param groupCommit  вызывается в рабочем потоке один раз на пакет со списком успешно выполненных команд
+     */
+    public ContentCommandBatchExecutor(int capacity, int maxBatchSize, Consumer<List<ContentCommand>> groupCommit) {
+        this(capacity, maxBatchSize, groupCommit, true);
+    }
+
+    /**
+     * @param capacity     емкость очереди команд
+     * @param maxBatchSize максимальное количество команд в пакете
+     * @param groupCommit  вызывается в рабочем потоке один раз на пакет со списком успешно выполненных команд
+     * @param coalescing   объединять ли избыточные команды пакета
+     */
+    public ContentCommandBatchExecutor(int capacity, int maxBatchSize, Consumer<List<ContentCommand>> groupCommit,
+                                       boolean coalescing) {
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.groupCommit = groupCommit;
+        this.coalescing = coalescing;
+        this.worker = new Thread(this::run, "content-command-executor");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Ставит команду в очередь. Если очередь заполнена, блокирует вызывающий поток до появления места.
+     *
+     * @param command команда
+     * @return результат, который завершится после выполнения команды и фиксации ее пакета
+     * @throws RejectedExecutionException если исполнитель закрыт
+     */
+    public CompletableFuture<Void> submit(ContentCommand command) {
+        Task task = new Task(command);
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Command executor is closed");
+            }
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.fail(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return task.result;
+    }
+
+    /**
+     * @return количество команд, ожидающих выполнения
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * @return количество команд, отброшенных при объединении
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Прекращает прием команд, дожидается выполнения команд, уже поставленных в очередь, и останавливает рабочий поток.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        try {
+            if (worker.isAlive()) {
+                queue.put(SHUTDOWN);
+            }
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.interrupt();
+        }
+        failQueued();
+    }
+
+    private void run() {
+        List<Task> batch = new ArrayList<>(maxBatchSize);
+        List<ContentCommand> executed = new ArrayList<>(maxBatchSize);
+        boolean shutdown = false;
+
+        try {
+            while (!shutdown) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, maxBatchSize - 1);
+
+                shutdown = batch.removeIf(task -> task == SHUTDOWN);
+                executeBatch(batch, executed);
+                batch.clear();
+                executed.clear();
+            }
+        } finally {
+            RejectedExecutionException cause = new RejectedExecutionException("Command executor is stopped");
+            batch.forEach(task -> task.fail(cause));
+            stopAccepting();
+        }
+    }
+
+    /**
+     * Закрывает исполнитель после остановки рабочего потока. Пока блокировка записи занята потоками, ожидающими
+     * места в очереди, очередь освобождается, чтобы они могли завершить постановку.
+     */
+    private void stopAccepting() {
+        boolean interrupted = false;
+        while (true) {
+            failQueued();
+            try {
+                if (closeLock.writeLock().tryLock(10, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        failQueued();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void failQueued() {
+        Task task;
+        while ((task = queue.poll()) != null) {
+            if (task != SHUTDOWN) {
+                task.fail(new RejectedExecutionException("Command executor is closed"));
+            }
+        }
+    }
+
+    private void executeBatch(List<Task> batch, List<ContentCommand> executed) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Task> cancelled = new ArrayList<>();
+        List<Task> survivors = batch;
+        if (coalescing) {
+            survivors = ContentCommandCoalescer.coalesce(batch, task -> task.command, (absorbed, survivor) -> {
+                if (survivor != null) {
+                    survivor.absorbed().add(absorbed);
+                } else {
+                    cancelled.add(absorbed);
+                }
+            });
+            coalescedCount.add(batch.size() - survivors.size());
+        }
+
+        List<Task> succeeded = new ArrayList<>(survivors.size() + cancelled.size());
+        for (Task task : survivors) {
+            try {
+                task.command.execute();
+                executed.add(task.command);
+                succeeded.add(task);
+            } catch (Throwable e) {
+                log.warn("Command {} failed", task.command, e);
+                failedCount.increment();
+                task.fail(e);
+            }
+        }
+        succeeded.addAll(cancelled);
+
+        try {
+            if (!executed.isEmpty()) {
+                groupCommit.accept(executed);
+            }
+        } catch (Throwable e) {
+            log.error("Group commit of {} commands failed", executed.size(), e);
+            failedCount.add(executed.size());
+            succeeded.forEach(task -> task.fail(e));
+            return;
+        } finally {
+            batchCount.increment();
+        }
+
+        executedCount.add(executed.size());
+        succeeded.forEach(Task::complete);
+    }
+
+    /**
+     * Команда в очереди вместе с результатом и командами, которые она поглотила при объединении.
+     */
+    private record Task(ContentCommand command, CompletableFuture<Void> result, List<Task> absorbed) {
+
+        Task(ContentCommand command) {
+            this(command, new CompletableFuture<>(), new ArrayList<>(0));
+        }
+
+        void complete() {
+            result.complete(null);
+            absorbed.forEach(Task::complete);
+        }
+
+        void fail(Throwable cause) {
+            result.completeExceptionally(cause);
+            absorbed.forEach(task -> task.fail(cause));
+        }
+    }
+}
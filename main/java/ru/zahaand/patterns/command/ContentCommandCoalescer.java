@@ -0,0 +1,142 @@
+package ru.zahaand.patterns.command;
+
+import ru.zahaand.patterns.command.impl.AddContentCommand;
+import ru.zahaand.patterns.command.impl.DeleteContentCommand;
+import ru.zahaand.patterns.command.impl.EditContentCommand;
+import ru.zahaand.patterns.service.ContentService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Класс {@code ContentCommandCoalescer} объединяет избыточные команды, относящиеся к одному контенту,
+ * внутри одного пакета.
+ *
+ * <p>Команды с одинаковыми хранилищем ({@link ContentCommand#getReceiver()}) и {@link ContentCommand#getContentId()}
+ * сокращаются по правилам:
+ * <ul>
+ *     <li>несколько изменений подряд — остается только последнее изменение;</li>
+ *     <li>изменение, за которым следует удаление, — остается только удаление;</li>
+ *     <li>добавление и последующие изменения, за которыми следует удаление, — все команды отбрасываются;</li>
+ *     <li>повторное удаление — отбрасывается;</li>
+ *     <li>удаление, за которым следует добавление, — обе команды сохраняются.</li>
+ * </ul>
+ * Хранилища сравниваются по ссылке; команды над разными хранилищами не объединяются. Команды без хранилища
+ * только сообщают о действии: они не объединяются и не мешают объединению других команд.
+ * Команды без идентификатора контента и команды других типов не объединяются и не объединяются через них:
+ * команда без идентификатора разделяет пакет для всех контентов, команда другого типа — для своего контента.
+ * Оставшиеся команды сохраняют исходный относительный порядок.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     List&lt;ContentCommand&gt; commands = List.of(new AddContentCommand(content, contentService),
+ *             new EditContentCommand(content.getId(), newContent, contentService),
+ *             new DeleteContentCommand(content.getId(), contentService));
+ *     List&lt;ContentCommand&gt; coalesced = ContentCommandCoalescer.coalesce(commands); // пустой список
+ * </pre>
+ */
+public final class ContentCommandCoalescer {
+
+    private ContentCommandCoalescer() {
+    }
+
+    /**
+     * Объединяет избыточные команды.
+     *
+     * @param commands команды в порядке поступления
+     * @return оставшиеся команды в исходном порядке
+     */
+    public static List<ContentCommand> coalesce(List<? extends ContentCommand> commands) {
+        return coalesce(commands, Function.identity(), (absorbed, survivor) -> {
+        });
+    }
+
+    /**
+     * Объединяет избыточные элементы, содержащие команды, например задачи исполнителя с результатами.
+     *
+     * @param items      элементы в порядке поступления
+     * @param commandOf  функция получения команды элемента
+     * @param onAbsorbed вызывается для каждого отброшенного элемента вместе с элементом, который его поглотил,
+     *                   или с {@code null}, если отброшенный элемент взаимно уничтожился с последующими
+     * @param <T>        тип элемента
+     * @return оставшиеся элементы в исходном порядке
+     */
+    public static <T> List<T> coalesce(List<? extends T> items, Function<? super T, ? extends ContentCommand> commandOf,
+                                       BiConsumer<? super T, ? super T> onAbsorbed) {
+        Map<ContentService, Map<UUID, List<T>>> pendingByReceiver = new IdentityHashMap<>();
+        Set<T> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (T item : items) {
+            ContentCommand command = commandOf.apply(item);
+            UUID contentId = command.getContentId();
+            if (contentId == null) {
+                // Команда без идентификатора может затрагивать любой контент, поэтому команды до и после нее
+                // не объединяются.
+                pendingByReceiver.clear();
+                continue;
+            }
+            ContentService receiver = command.getReceiver();
+            if (receiver == null) {
+                continue;
+            }
+
+            List<T> pending = pendingByReceiver.computeIfAbsent(receiver, r -> new HashMap<>())
+                    .computeIfAbsent(contentId, id -> new ArrayList<>(2));
+            T last = pending.isEmpty() ? null : pending.get(pending.size() - 1);
+            ContentCommand lastCommand = last == null ? null : commandOf.apply(last);
+
+            if (command instanceof EditContentCommand) {
+                if (lastCommand instanceof EditContentCommand) {
+                    absorb(pending, last, item, dropped, onAbsorbed);
+                }
+                pending.add(item);
+            } else if (command instanceof DeleteContentCommand) {
+                if (lastCommand instanceof EditContentCommand) {
+                    absorb(pending, last, item, dropped, onAbsorbed);
+                    last = pending.isEmpty() ? null : pending.get(pending.size() - 1);
+                    lastCommand = last == null ? null : commandOf.apply(last);
+                }
+
+                if (lastCommand instanceof AddContentCommand) {
+                    absorb(pending, last, null, dropped, onAbsorbed);
+                    dropped.add(item);
+                    onAbsorbed.accept(item, null);
+                } else if (lastCommand instanceof DeleteContentCommand) {
+                    dropped.add(item);
+                    onAbsorbed.accept(item, last);
+                } else {
+                    pending.add(item);
+                }
+            } else {
+                pending.add(item);
+            }
+        }
+
+        if (dropped.isEmpty()) {
+            return new ArrayList<>(items);
+        }
+
+        List<T> survivors = new ArrayList<>(items.size() - dropped.size());
+        for (T item : items) {
+            if (!dropped.contains(item)) {
+                survivors.add(item);
+            }
+        }
+        return survivors;
+    }
+
+    private static <T> void absorb(List<T> pending, T absorbed, T survivor, Set<T> dropped,
+                                   BiConsumer<? super T, ? super T> onAbsorbed) {
+        pending.remove(pending.size() - 1);
+        dropped.add(absorbed);
+        onAbsorbed.accept(absorbed, survivor);
+    }
+}
@@ -0,0 +1,180 @@
+package ru.zahaand.patterns.command;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Класс {@code ContentCommandHistory} хранит историю выполненных команд для отмены и повтора
+ * отдельно для каждого контента.
+ *
+ * <p>Для каждого идентификатора контента ведутся два стека ограниченной глубины: стек отмены и стек повтора.
+ * При переполнении отбрасываются самые старые команды. Выполнение новой команды очищает стек повтора этого контента.
+ * Операции над одним контентом выполняются последовательно под блокировкой его истории, операции над разными
+ * контентами — параллельно. Команды выполняются вне операций над картой историй, поэтому обращение к хранилищу
+ * не блокирует историю других контентов. История контента удаляется методом {@link #clear(UUID)}.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     ContentCommandHistory history = new ContentCommandHistory(16);
+ *     command.execute();
+ *     history.record(command);
+ *     history.undo(command.getContentId());
+ *     history.redo(command.getContentId());
+ * </pre>
+ */
+@Slf4j
+public class ContentCommandHistory {
+
+    public static final int DEFAULT_MAX_DEPTH = 32;
+
+    private final int maxDepth;
+    private final ConcurrentMap<UUID, Stacks> stacksByContentId = new ConcurrentHashMap<>();
+
+    public ContentCommandHistory() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxDepth максимальная глубина стеков отмены и повтора для одного контента
+     */
+    public ContentCommandHistory(int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Max depth must be positive");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Запоминает выполненную команду. Команды без идентификатора контента и команды, не изменяющие хранилище
+     * ({@link ContentCommand#isMutating()}), не запоминаются: отменить их нечем.
+     *
+     * @param command выполненная команда
+     */
+    public void record(ContentCommand command) {
+        UUID contentId = command.getContentId();
+        if (contentId == null || !command.isMutating()) {
+            return;
+        }
+
+        Stacks stacks = stacksByContentId.computeIfAbsent(contentId, id -> new Stacks());
+        synchronized (stacks) {
+            push(stacks.undo, command);
+            stacks.redo.clear();
+        }
+    }
+
+    /**
+     * Отменяет последнюю команду контента, выполняя обратную ей команду.
+     *
+     * @param contentId идентификатор контента
+     * @return выполненная обратная команда или {@code null}, если отменять нечего
+     */
+    public ContentCommand undo(UUID contentId) {
+        Stacks stacks = stacksByContentId.get(contentId);
+        if (stacks == null) {
+            return null;
+        }
+
+        ContentCommand inverse;
+        synchronized (stacks) {
+            ContentCommand command = stacks.undo.pollLast();
+            if (command == null) {
+                return null;
+            }
+            try {
+                inverse = command.inverse();
+                inverse.execute();
+            } catch (RuntimeException e) {
+                stacks.undo.addLast(command);
+                throw e;
+            }
+            push(stacks.redo, command);
+        }
+
+        log.debug("Command undone for content {}", contentId);
+        return inverse;
+    }
+
+    /**
+     * Повторно выполняет последнюю отмененную команду контента.
+     *
+     * @param contentId идентификатор контента
+     * @return выполненная команда или {@code null}, если повторять нечего
+     */
+    public ContentCommand redo(UUID contentId) {
+        Stacks stacks = stacksByContentId.get(contentId);
+        if (stacks == null) {
+            return null;
+        }
+
+        ContentCommand command;
+        synchronized (stacks) {
+            command = stacks.redo.pollLast();
+            if (command == null) {
+                return null;
+            }
+            try {
+                command.execute();
+            } catch (RuntimeException e) {
+                stacks.redo.addLast(command);
+                throw e;
+            }
+            push(stacks.undo, command);
+        }
+
+        log.debug("Command redone for content {}", contentId);
+        return command;
+    }
+
+    public boolean canUndo(UUID contentId) {
+        Stacks stacks = stacksByContentId.get(contentId);
+        if (stacks == null) {
+            return false;
+        }
+        synchronized (stacks) {
+            return !stacks.undo.isEmpty();
+        }
+    }
+
+    public boolean canRedo(UUID contentId) {
+        Stacks stacks = stacksByContentId.get(contentId);
+        if (stacks == null) {
+            return false;
+        }
+        synchronized (stacks) {
+            return !stacks.redo.isEmpty();
+        }
+    }
+
+    /**
+     * Удаляет историю контента.
+     */
+    public void clear(UUID contentId) {
+        stacksByContentId.remove(contentId);
+    }
+
+    /**
+     * @return количество контента, для которого хранится история
+     */
+    public int size() {
+        return stacksByContentId.size();
+    }
+
+    private void push(Deque<ContentCommand> stack, ContentCommand command) {
+        if (stack.size() == maxDepth) {
+            stack.pollFirst();
+        }
+        stack.addLast(command);
+    }
+
+    private static final class Stacks {
+
+        private final Deque<ContentCommand> undo = new ArrayDeque<>();
+        private final Deque<ContentCommand> redo = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,438 @@
+package ru.zahaand.patterns.command;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.command.impl.AddContentCommand;
+import ru.zahaand.patterns.command.impl.DeleteContentCommand;
+import ru.zahaand.patterns.command.impl.EditContentCommand;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.service.ContentService;
+import ru.zahaand.patterns.service.impl.ContentRecordCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+/**
+ * Класс {@code ContentCommandJournal} представляет собой компактный двоичный журнал выполненных команд
+ * управления контентом для восстановления после сбоя.
+ *
+ * <h3>Формат записи:</h3>
+ * <pre>
+ *     length:int | crc32c:int | type:byte | contentId:16 байт | body
+ * </pre>
+ * Поле {@code length} покрывает {@code type}, идентификатор и тело, контрольная сумма вычисляется по тем же байтам.
+ * Команды добавления и изменения записываются как {@code PUT} с телом в формате {@link ContentRecordCodec},
+ * команды удаления — как {@code DELETE} без тела. При открытии журнала оборванная при сбое запись в конце файла
+ * отбрасывается.
+ *
+ * <p>Записи накапливаются в памяти и сбрасываются на диск одним вызовом {@link #sync()}, поэтому пакет команд,
+ * выполненный {@link ContentCommandBatchExecutor}, фиксируется одной операцией {@code force} ({@link #commit(List)}).
+ *
+ * <p>Контрольная точка ({@link #checkpoint()}) сохраняет состояние хранилища переданным действием,
+ * например {@code SegmentLogContentService.flush()}, после чего журнал очищается. Контрольная точка выполняется
+ * автоматически, когда размер журнала превышает заданный порог, поэтому время восстановления ограничено.
+ *
+ * <p>Восстановление ({@link #replay(ContentService, int)}) читает журнал, отображенный в память, распределяет записи
+ * по потокам по идентификатору контента и применяет их параллельно. Записи одного контента применяются одним потоком
+ * в исходном порядке. Применение идемпотентно ({@code PUT} создает или заменяет контент, {@code DELETE} удаляет),
+ * поэтому повторное восстановление поверх контрольной точки дает тот же результат.
+ * Журнал относится к одному хранилищу: все команды должны выполняться над одним {@link ContentService}.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     ContentCommandJournal journal = new ContentCommandJournal(Path.of("content.journal"));
+ *     journal.replay(contentService, Runtime.getRuntime().availableProcessors());
+ *
+ *     contentEditor.setJournal(journal);
+ *     contentEditor.execute(new AddContentCommand(content, contentService));
+ * </pre>
+ */
+@Slf4j
+public class ContentCommandJournal implements Closeable {
+
+    static final byte PUT = 0;
+    static final byte DELETE = 1;
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    private static final int ID_SIZE = Long.BYTES + Long.BYTES;
+    private static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long checkpointBytes;
+    private final Runnable checkpointAction;
+
+    private final Object lock = new Object();
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private long size;
+    private long checkpointCount;
+
+    public ContentCommandJournal(Path path) throws IOException {
+        this(path, Long.MAX_VALUE, () -> {
+        });
+    }
+
+    /**
+     * @param path             файл журнала
+     * @param checkpointBytes  размер журнала, при превышении которого выполняется контрольная точка
+     * @param checkpointAction действие, сохраняющее состояние хранилища перед очисткой журнала
+     */
+    public ContentCommandJournal(Path path, long checkpointBytes, Runnable checkpointAction) throws IOException {
+        this.path = path;
+        this.checkpointBytes = checkpointBytes;
+        this.checkpointAction = checkpointAction;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = recover();
+    }
+
+    /**
+     * Добавляет команду в буфер журнала. Запись становится устойчивой после {@link #sync()}.
+     *
+     * @param command выполненная команда добавления, изменения или удаления; команды, не изменяющие хранилище
+     *                ({@link ContentCommand#isMutating()}), пропускаются
+     * @throws IllegalArgumentException если тип команды не поддерживается журналом
+     */
+    public void append(ContentCommand command) {
+        if (!command.isMutating()) {
+            return;
+        }
+        synchronized (lock) {
+            appendRecord(command);
+            if (pending.position() >= MAX_PENDING_BYTES) {
+                writePending();
+            }
+        }
+    }
+
+    /**
+     * @see #append(ContentCommand)
+     */
+    public void appendAll(Collection<? extends ContentCommand> commands) {
+        synchronized (lock) {
+            for (ContentCommand command : commands) {
+                append(command);
+            }
+        }
+    }
+
+    /**
+     * Записывает накопленные записи и сбрасывает журнал на диск. Выполняет контрольную точку,
+     * если размер журнала превысил порог.
+     */
+    public void sync() {
+        synchronized (lock) {
+            writePending();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (size >= checkpointBytes) {
+                checkpoint();
+            }
+        }
+    }
+
+    /**
+     * Добавляет пакет команд и фиксирует его одной операцией сброса на диск.
+     * Подходит в качестве обработчика фиксации {@link ContentCommandBatchExecutor}.
+     *
+     * @param commands выполненные команды
+     */
+    public void commit(List<ContentCommand> commands) {
+        synchronized (lock) {
+            appendAll(commands);
+            sync();
+        }
+    }
+
+    /**
+     * Сохраняет состояние хранилища действием контрольной точки и очищает журнал.
+     */
+    public void checkpoint() {
+        synchronized (lock) {
+            writePending();
+            checkpointAction.run();
+            try {
+                channel.truncate(0);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            size = 0;
+            checkpointCount++;
+            log.debug("Journal checkpoint #{} completed: {}", checkpointCount, path);
+        }
+    }
+
+    /**
+     * @see #replay(ContentService, int)
+     */
+    public long replay(ContentService target) {
+        return replay(target, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Применяет записи журнала к хранилищу параллельно.
+     *
+     * @param target      хранилище
+     * @param parallelism количество потоков восстановления
+     * @return количество примененных записей
+     */
+    public long replay(ContentService target, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+
+        synchronized (lock) {
+            writePending();
+            if (size == 0) {
+                return 0;
+            }
+
+            MappedByteBuffer buffer;
+            try {
+                buffer = map(size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            OffsetList[] partitions = new OffsetList[parallelism];
+            for (int i = 0; i < parallelism; i++) {
+                partitions[i] = new OffsetList();
+            }
+            int position = 0;
+            while (position < size) {
+                int length = buffer.getInt(position);
+                UUID contentId = readId(buffer, position + RECORD_HEADER_SIZE + 1);
+                partitions[Math.floorMod(contentId.hashCode(), parallelism)].add(position);
+                position += RECORD_HEADER_SIZE + length;
+            }
+
+            if (parallelism == 1) {
+                return applyAll(buffer, partitions[0], target);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<Long>> results = new ArrayList<>(parallelism);
+                for (OffsetList partition : partitions) {
+                    results.add(executor.submit(() -> applyAll(buffer, partition, target)));
+                }
+
+                long applied = 0;
+                for (Future<Long> result : results) {
+                    applied += result.get();
+                }
+                log.info("Journal replayed: {} records", applied);
+                return applied;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Journal replay interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Journal replay failed", e.getCause());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return размер записанной части журнала в байтах
+     */
+    public long size() {
+        synchronized (lock) {
+            return size + pending.position();
+        }
+    }
+
+    public long getCheckpointCount() {
+        synchronized (lock) {
+            return checkpointCount;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            writePending();
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void appendRecord(ContentCommand command) {
+        if (command instanceof AddContentCommand add) {
+            appendPut(add.getContent().getId(), add.getContent());
+        } else if (command instanceof EditContentCommand edit) {
+            appendPut(edit.getContentId(), edit.getNewContent());
+        } else if (command instanceof DeleteContentCommand delete) {
+            int start = beginRecord(DELETE, delete.getContentId(), 0);
+            endRecord(start);
+        } else {
+            throw new IllegalArgumentException("Unsupported command: " + command.getClass().getName());
+        }
+    }
+
+    private void appendPut(UUID contentId, Content content) {
+        ByteBuffer[] encoded = ContentRecordCodec.encode(content);
+        int start = beginRecord(PUT, contentId, encoded[0].remaining() + encoded[1].remaining());
+        pending.put(encoded[0]).put(encoded[1]);
+        endRecord(start);
+    }
+
+    private int beginRecord(byte type, UUID contentId, int bodySize) {
+        ensureCapacity(RECORD_HEADER_SIZE + 1 + ID_SIZE + bodySize);
+        int start = pending.position();
+        pending.position(start + RECORD_HEADER_SIZE);
+        pending.put(type).putLong(contentId.getMostSignificantBits()).putLong(contentId.getLeastSignificantBits());
+        return start;
+    }
+
+    private void endRecord(int start) {
+        int end = pending.position();
+        crc.reset();
+        crc.update(pending.slice(start + RECORD_HEADER_SIZE, end - start - RECORD_HEADER_SIZE));
+        pending.putInt(start, end - start - RECORD_HEADER_SIZE);
+        pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+    }
+
+    private void ensureCapacity(int recordSize) {
+        if (pending.remaining() >= recordSize) {
+            return;
+        }
+        if (pending.position() > 0) {
+            writePending();
+            if (pending.remaining() >= recordSize) {
+                return;
+            }
+        }
+        pending = ByteBuffer.allocate(Math.max(pending.capacity() * 2, recordSize));
+    }
+
+    private void writePending() {
+        if (pending.position() == 0) {
+            return;
+        }
+
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                size += channel.write(pending, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Находит конец последней целой записи и отбрасывает оборванный хвост файла.
+     */
+    private long recover() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            return 0;
+        }
+
+        MappedByteBuffer buffer = map(fileSize);
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            int length = buffer.getInt(position);
+            int bodyStart = position + RECORD_HEADER_SIZE;
+            if (length < 1 + ID_SIZE || bodyStart + (long) length > fileSize) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(buffer.slice(bodyStart, length));
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            position = bodyStart + length;
+        }
+
+        if (position < fileSize) {
+            log.warn("Journal {} has a torn tail: truncating {} bytes", path, fileSize - position);
+            channel.truncate(position);
+        }
+        return position;
+    }
+
+    private MappedByteBuffer map(long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Journal is too large to be replayed, checkpoint is required: " + path);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+    }
+
+    private static long applyAll(ByteBuffer buffer, OffsetList offsets, ContentService target) {
+        for (int i = 0; i < offsets.size; i++) {
+            int position = offsets.values[i];
+            int length = buffer.getInt(position);
+            int typePosition = position + RECORD_HEADER_SIZE;
+            UUID contentId = readId(buffer, typePosition + 1);
+
+            if (buffer.get(typePosition) == DELETE) {
+                target.delete(contentId);
+                continue;
+            }
+
+            // Тело копируется в кучу: декодер отображает содержимое изображений без копирования, а отображение
+            // журнала перестает быть действительным после очистки журнала в контрольной точке.
+            int bodyStart = typePosition + 1 + ID_SIZE;
+            ByteBuffer body = ByteBuffer.allocate(typePosition + length - bodyStart)
+                    .put(buffer.slice(bodyStart, typePosition + length - bodyStart))
+                    .flip();
+            Content content = ContentRecordCodec.decode(body);
+            content.setId(contentId);
+            if (target.read(contentId) != null) {
+                target.update(content);
+            } else {
+                target.create(content);
+            }
+        }
+        return offsets.size;
+    }
+
+    private static UUID readId(ByteBuffer buffer, int position) {
+        return new UUID(buffer.getLong(position), buffer.getLong(position + Long.BYTES));
+    }
+
+    /**
+     * Растущий массив смещений записей без упаковки в {@link Integer}.
+     */
+    private static final class OffsetList {
+
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
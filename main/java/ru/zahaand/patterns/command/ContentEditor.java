@@ -1,9 +1,11 @@
 package ru.zahaand.patterns.command;
 
-import lombok.Data;
 import lombok.Setter;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Класс {@code ContentEditor} предназначен для выполнения команды управления контентом.
  * Он инкапсулирует логику выполнения команды, предоставляя простой способ выполнения команды.
@@ -11,6 +13,23 @@ import org.springframework.stereotype.Component;
  * <li>Служит для демонстрации паттерна Command для инкапсуляции операций над контентом,
  * предоставляя гибкий и расширяемый интерфейс для выполнения команд.
  *
+ * <p>Если задан {@link ContentCommandBatchExecutor}, команды можно выполнять асинхронно через
+ * {@link #submitCommand()} и {@link #submit(ContentCommand)}: вызывающий поток не ждет выполнения,
+ * а получает результат в виде {@link CompletableFuture}.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     contentEditor.setBatchExecutor(new ContentCommandBatchExecutor());
+ *     CompletableFuture&lt;Void&gt; result = contentEditor.submit(new EditContentCommand(contentId, newContent));
+ * </pre>
+ *
+ * <p>Если задан {@link ContentCommandJournal}, каждая команда, изменившая хранилище при синхронном выполнении,
+ * а также команды отмены и повтора записываются в журнал и сбрасываются на диск до возврата управления.
+ * Для асинхронного выполнения журнал подключается как обработчик фиксации исполнителя:
+ * {@code new ContentCommandBatchExecutor(1024, 128, journal::commit)}. Если задана {@link ContentCommandHistory},
+ * команды, изменившие хранилище при синхронном выполнении, можно отменять и повторять через {@link #undo(UUID)}
+ * и {@link #redo(UUID)}.
+ *
  * @see ContentCommand
  */
 @Setter
@@ -18,8 +37,94 @@ import org.springframework.stereotype.Component;
 public class ContentEditor {
 
     private ContentCommand command;
+    private ContentCommandBatchExecutor batchExecutor;
+    private ContentCommandJournal journal;
+    private ContentCommandHistory history;
 
     public void executeCommand() {
+        execute(command);
+    }
+
+    /**
+     * Выполняет команду синхронно. Команду, изменившую хранилище, запоминает в истории и записывает в журнал,
+     * если они заданы.
+     *
+     * @param command команда
+     */
+    public void execute(ContentCommand command) {
         command.execute();
+        if (history != null && command.isMutating()) {
+            history.record(command);
+        }
+        writeToJournal(command);
+    }
+
+    /**
+     * Отменяет последнюю команду контента.
+     *
+     * @param contentId идентификатор контента
+     * @return {@code true}, если команда была отменена
+     * @throws IllegalStateException если история не задана
+     */
+    public boolean undo(UUID contentId) {
+        ContentCommand inverse = requireHistory().undo(contentId);
+        writeToJournal(inverse);
+        return inverse != null;
+    }
+
+    /**
+     * Повторяет последнюю отмененную команду контента.
+     *
+     * @param contentId идентификатор контента
+     * @return {@code true}, если команда была повторена
+     * @throws IllegalStateException если история не задана
+     */
+    public boolean redo(UUID contentId) {
+        ContentCommand redone = requireHistory().redo(contentId);
+        writeToJournal(redone);
+        return redone != null;
+    }
+
+    /**
+     * Выполняет текущую команду асинхронно.
+     *
+     * @see #submit(ContentCommand)
+     */
+    public CompletableFuture<Void> submitCommand() {
+        return submit(command);
+    }
+
+    /**
+     * Ставит команду в очередь исполнителя. Если исполнитель не задан, выполняет команду синхронно
+     * в вызывающем потоке и возвращает завершенный результат.
+     *
+     * @param command команда
+     * @return результат выполнения команды
+     */
+    public CompletableFuture<Void> submit(ContentCommand command) {
+        if (batchExecutor != null) {
+            return batchExecutor.submit(command);
+        }
+
+        try {
+            command.execute();
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void writeToJournal(ContentCommand command) {
+        if (journal != null && command != null && command.isMutating()) {
+            journal.append(command);
+            journal.sync();
+        }
+    }
+
+    private ContentCommandHistory requireHistory() {
+        if (history == null) {
+            throw new IllegalStateException("Command history is not configured");
+        }
+        return history;
     }
 }
@@ -1,20 +1,53 @@
 package ru.zahaand.patterns.command.impl;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.command.ContentCommand;
 import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.service.ContentService;
+
+import java.util.UUID;
 
 @Slf4j
+@Getter
 public class AddContentCommand implements ContentCommand {
 
     private Content content;
+    private ContentService receiver;
 
     public AddContentCommand(Content content) {
         this.content = content;
     }
 
+    /**
+     * @param content  добавляемый контент
+     * @param receiver хранилище, в которое добавляется контент
+     */
+    public AddContentCommand(Content content, ContentService receiver) {
+        this.content = content;
+        this.receiver = receiver;
+    }
+
     @Override
     public void execute() {
         log.info("Adding CONTENT {}...", content);
+        if (receiver != null) {
+            receiver.create(content);
+        }
+    }
+
+    @Override
+    public UUID getContentId() {
+        return content.getId();
+    }
+
+    @Override
+    public boolean isMutating() {
+        return receiver != null;
+    }
+
+    @Override
+    public ContentCommand inverse() {
+        return new DeleteContentCommand(content.getId(), receiver);
     }
 }
@@ -1,21 +1,57 @@
 package ru.zahaand.patterns.command.impl;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.command.ContentCommand;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.service.ContentService;
 
 import java.util.UUID;
 
 @Slf4j
+@Getter
 public class DeleteContentCommand implements ContentCommand {
 
     private UUID contentId;
+    private ContentService receiver;
+
+    /**
+     * Состояние контента до удаления, сохраненное при выполнении для отмены команды.
+     */
+    private Content previousContent;
 
     public DeleteContentCommand(UUID contentId) {
         this.contentId = contentId;
     }
 
+    /**
+     * @param contentId идентификатор удаляемого контента
+     * @param receiver  хранилище, из которого удаляется контент
+     */
+    public DeleteContentCommand(UUID contentId, ContentService receiver) {
+        this.contentId = contentId;
+        this.receiver = receiver;
+    }
+
     @Override
     public void execute() {
         log.info("Deleting CONTENT with ID {}...", contentId);
+        if (receiver != null) {
+            previousContent = receiver.read(contentId);
+            receiver.delete(contentId);
+        }
+    }
+
+    @Override
+    public boolean isMutating() {
+        return receiver != null;
+    }
+
+    @Override
+    public ContentCommand inverse() {
+        if (previousContent == null) {
+            throw new IllegalStateException("Nothing to restore for content: " + contentId);
+        }
+        return new AddContentCommand(previousContent, receiver);
     }
 }
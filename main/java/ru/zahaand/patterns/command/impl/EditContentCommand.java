@@ -1,24 +1,64 @@
 package ru.zahaand.patterns.command.impl;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.command.ContentCommand;
 import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.service.ContentService;
 
 import java.util.UUID;
 
 @Slf4j
+@Getter
 public class EditContentCommand implements ContentCommand {
 
     private UUID contentId;
     private Content newContent;
+    private ContentService receiver;
+
+    /**
+     * Состояние контента до изменения, сохраненное при выполнении для отмены команды.
+     */
+    private Content previousContent;
 
     public EditContentCommand(UUID contentId, Content newContent) {
         this.contentId = contentId;
         this.newContent = newContent;
     }
 
+    /**
+     * @param contentId  идентификатор изменяемого контента
+     * @param newContent новое состояние контента; в хранилище сохраняется его копия с идентификатором {@code contentId},
+     *                   сам объект не изменяется
+     * @param receiver   хранилище, в котором изменяется контент
+     */
+    public EditContentCommand(UUID contentId, Content newContent, ContentService receiver) {
+        this.contentId = contentId;
+        this.newContent = newContent;
+        this.receiver = receiver;
+    }
+
     @Override
     public void execute() {
         log.info("Editing CONTENT with ID {}... . New content: {}", contentId, newContent);
+        if (receiver != null) {
+            previousContent = receiver.read(contentId);
+            Content updated = newContent.clone();
+            updated.setId(contentId);
+            receiver.update(updated);
+        }
+    }
+
+    @Override
+    public boolean isMutating() {
+        return receiver != null;
+    }
+
+    @Override
+    public ContentCommand inverse() {
+        if (previousContent == null) {
+            throw new IllegalStateException("Nothing to restore for content: " + contentId);
+        }
+        return new EditContentCommand(contentId, previousContent, receiver);
     }
 }
@@ -1,10 +1,14 @@
 package ru.zahaand.patterns.composite;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.zahaand.patterns.DisplayableContent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
 /**
  * <h1>Паттерн Composite. Компоновщик</h1>
@@ -50,28 +54,178 @@ import java.util.List;
  * В этом примере создается группа контента, включающая изображение и текст,
  * и затем отображается как единое целое. Это демонстрирует, как паттерн Composite может быть использован для
  * организации и обработки иерархических структур контента в приложении.
+ *
+ * <p>Для больших групп представление можно формировать параллельно ({@link #renderParallel()}): дочерние элементы
+ * делятся на диапазоны, которые обрабатываются задачами fork/join, а вложенные группы больше порога обрабатываются
+ * отдельными задачами. Порядок элементов в итоговом представлении сохраняется. Порог последовательной обработки
+ * задается {@link #setParallelThreshold(int)}.
+ *
+ * <p>Представления группы и ее элементов кэшируются ({@link RenderCache}). Добавление и удаление элементов,
+ * а также изменение любого элемента делают неактуальными кэши группы и всех групп выше по дереву, поэтому
+ * повторное формирование представления заново вычисляет только измененные поддеревья.
+ *
+ * <p>Группа ведет себя как список: один и тот же элемент можно добавить несколько раз, а удаляется первый элемент,
+ * равный переданному по {@code equals}. Добавление и удаление элементов синхронизированы, а отображение
+ * и формирование представления обходят снимок списка, полученный под той же блокировкой, поэтому группу можно
+ * изменять одновременно с ее отображением.
+ *
+ * <pre>
+ *     compositeContent.setParallelThreshold(512);
+ *     String page = compositeContent.renderParallel();
+ * </pre>
  */
+@Slf4j
 @Component
 public class ContentComposite implements DisplayableContent {
 
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
+    private static final String SEPARATOR = System.lineSeparator();
+
     private final List<DisplayableContent> components;
+    private final RenderCache renderCache = new RenderCache();
+    private volatile int uncachedCount;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
     public ContentComposite() {
         components = new ArrayList<>();
     }
 
-    public void addComponent(DisplayableContent component) {
+    public synchronized void addComponent(DisplayableContent component) {
         components.add(component);
+
+        RenderCache componentCache = component.getRenderCache();
+        if (componentCache != null) {
+            componentCache.addParent(renderCache);
+        } else {
+            uncachedCount++;
+        }
+        renderCache.invalidate();
     }
 
-    public void removeComponent(DisplayableContent component) {
-        components.remove(component);
+    /**
+     * Удаляет первый элемент, равный переданному по {@code equals}.
+     */
+    public synchronized void removeComponent(DisplayableContent component) {
+        int index = components.indexOf(component);
+        if (index < 0) {
+            return;
+        }
+        DisplayableContent removed = components.remove(index);
+
+        RenderCache componentCache = removed.getRenderCache();
+        if (componentCache == null) {
+            uncachedCount--;
+        } else if (!containsInstance(removed)) {
+            componentCache.removeParent(renderCache);
+        }
+        renderCache.invalidate();
     }
 
     @Override
     public void display() {
-        for (DisplayableContent component : components) {
+        for (DisplayableContent component : getComponents()) {
             component.display();
         }
     }
+
+    /**
+     * Формирует представление группы параллельно и выводит его одним сообщением.
+     */
+    public void displayParallel() {
+        log.info("Displaying COMPOSITE content:{}{}", SEPARATOR, renderParallel());
+    }
+
+    /**
+     * Формирует представление группы последовательно: представления дочерних элементов по одному на строку.
+     */
+    @Override
+    public String render() {
+        return cachedRender(() -> {
+            List<DisplayableContent> liveComponents = getComponents();
+            String[] renders = new String[liveComponents.size()];
+            for (int i = 0; i < renders.length; i++) {
+                renders[i] = liveComponents.get(i).render();
+            }
+            return join(renders);
+        });
+    }
+
+    /**
+     * Формирует представление группы параллельно в общем пуле fork/join.
+     *
+     * @return представление, совпадающее с {@link #render()}
+     */
+    public String renderParallel() {
+        return renderParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Формирует представление группы параллельно в переданном пуле fork/join.
+     *
+     * @param pool пул fork/join
+     * @return представление, совпадающее с {@link #render()}
+     */
+    public String renderParallel(ForkJoinPool pool) {
+        return pool.invoke(ForkJoinTask.adapt(() -> RenderTask.render(this, parallelThreshold)));
+    }
+
+    @Override
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * @return количество непосредственных дочерних элементов
+     */
+    public synchronized int size() {
+        return components.size();
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * @param parallelThreshold максимальное количество дочерних элементов, обрабатываемых одной задачей
+     *                          последовательно; применяется ко всем вложенным группам
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * @return снимок дочерних элементов в порядке добавления
+     */
+    synchronized List<DisplayableContent> getComponents() {
+        return new ArrayList<>(components);
+    }
+
+    /**
+     * Возвращает кэшированное представление или вычисляет его. Если в группе есть элементы без кэша,
+     * представление вычисляется при каждом вызове.
+     */
+    String cachedRender(Supplier<String> renderer) {
+        return uncachedCount > 0 ? renderer.get() : renderCache.get(renderer);
+    }
+
+    /**
+     * Проверяет, остался ли в группе тот же экземпляр: кэш элемента, добавленного несколько раз, должен
+     * оставаться связанным с группой до удаления последнего экземпляра.
+     */
+    private boolean containsInstance(DisplayableContent component) {
+        for (DisplayableContent current : components) {
+            if (current == component) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String join(String[] renders) {
+        return String.join(SEPARATOR, renders);
+    }
 }
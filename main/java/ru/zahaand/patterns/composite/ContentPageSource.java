@@ -0,0 +1,52 @@
+package ru.zahaand.patterns.composite;
+
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.iterator.ContentIterator;
+import ru.zahaand.patterns.service.ContentService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Интерфейс {@code ContentPageSource} определяет постраничный источник дочерних элементов
+ * для {@link LazyContentComposite}.
+ *
+ * <p>Страницы запрашиваются последовательно: каждая следующая страница начинается после последнего элемента
+ * предыдущей. Страница меньше запрошенного размера означает, что элементов больше нет.
+ */
+@FunctionalInterface
+public interface ContentPageSource {
+
+    /**
+     * Загружает страницу элементов.
+     *
+     * @param after    последний элемент предыдущей страницы или {@code null} для первой страницы
+     * @param pageSize максимальный размер страницы
+     * @return элементы страницы
+     */
+    List<? extends Content> loadPage(Content after, int pageSize);
+
+    /**
+     * Источник контента пользователя, читающий хранилище постранично по идентификатору контента.
+     *
+     * @see ContentService#readByUser(UUID, UUID, int)
+     */
+    static ContentPageSource ofUser(ContentService contentService, UUID userId) {
+        return (after, pageSize) -> contentService.readByUser(userId, after == null ? null : after.getId(), pageSize);
+    }
+
+    /**
+     * Источник, читающий элементы из итератора. Итератор проходится один раз,
+     * поэтому такой источник подходит только для однократного отображения.
+     */
+    static ContentPageSource of(ContentIterator iterator) {
+        return (after, pageSize) -> {
+            List<Content> page = new ArrayList<>(pageSize);
+            while (page.size() < pageSize && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+            return page;
+        };
+    }
+}
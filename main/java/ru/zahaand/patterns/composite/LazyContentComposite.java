@@ -0,0 +1,180 @@
+package ru.zahaand.patterns.composite;
+
+import ru.zahaand.patterns.DisplayableContent;
+import ru.zahaand.patterns.domain.Content;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Класс {@code LazyContentComposite} представляет собой группу контента, дочерние элементы которой не хранятся
+ * в памяти, а загружаются постранично из {@link ContentPageSource} при каждом обходе.
+ *
+ * <p>Во время обхода в памяти находятся только текущая страница и не более {@code prefetchPages} следующих страниц,
+ * которые загружаются заранее в фоне, пока обрабатывается текущая. Поэтому отображение истории пользователя
+ * из сотни тысяч элементов не требует сотни тысяч живых объектов, а задержка загрузки страниц скрыта
+ * обработкой предыдущих.
+ *
+ * <p>Представление группы не кэшируется: источник может измениться между обходами.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     LazyContentComposite history = new LazyContentComposite(ContentPageSource.ofUser(contentService, userId), 500, 2);
+ *     history.display();
+ * </pre>
+ */
+public class LazyContentComposite implements DisplayableContent {
+
+    public static final int DEFAULT_PAGE_SIZE = 256;
+    public static final int DEFAULT_PREFETCH_PAGES = 1;
+
+    private static final String SEPARATOR = System.lineSeparator();
+
+    private final ContentPageSource source;
+    private final int pageSize;
+    private final int prefetchPages;
+    private final Executor executor;
+
+    public LazyContentComposite(ContentPageSource source) {
+        this(source, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH_PAGES);
+    }
+
+    public LazyContentComposite(ContentPageSource source, int pageSize, int prefetchPages) {
+        this(source, pageSize, prefetchPages, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param source        источник дочерних элементов
+     * @param pageSize      размер страницы
+     * @param prefetchPages количество страниц, загружаемых заранее; {@code 0} отключает предварительную загрузку
+     * @param executor      исполнитель, в котором загружаются страницы
+     */
+    public LazyContentComposite(ContentPageSource source, int pageSize, int prefetchPages, Executor executor) {
+        if (pageSize <= 0 || prefetchPages < 0) {
+            throw new IllegalArgumentException("Page size must be positive and prefetch must not be negative");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+        this.prefetchPages = prefetchPages;
+        this.executor = executor;
+    }
+
+    @Override
+    public void display() {
+        forEachPage(page -> page.forEach(DisplayableContent::display));
+    }
+
+    /**
+     * Формирует представление всех элементов по одному на строку, загружая страницы по мере обхода.
+     */
+    @Override
+    public String render() {
+        StringBuilder render = new StringBuilder();
+        forEachPage(page -> {
+            for (Content content : page) {
+                if (!render.isEmpty()) {
+                    render.append(SEPARATOR);
+                }
+                render.append(content.render());
+            }
+        });
+        return render.toString();
+    }
+
+    /**
+     * Обходит страницы по порядку. Страница доступна только во время вызова обработчика.
+     *
+     * @param action обработчик страницы
+     */
+    public void forEachPage(Consumer<List<? extends Content>> action) {
+        Iterator<List<? extends Content>> pages = pages();
+        while (pages.hasNext()) {
+            action.accept(pages.next());
+        }
+    }
+
+    /**
+     * @return итератор по страницам с предварительной загрузкой следующих страниц
+     */
+    public Iterator<List<? extends Content>> pages() {
+        return new PageIterator();
+    }
+
+    /**
+     * Итератор страниц. Каждая следующая страница запрашивается после завершения загрузки предыдущей,
+     * поэтому вызовы источника выполняются последовательно, даже если они происходят в разных потоках.
+     */
+    private final class PageIterator implements Iterator<List<? extends Content>> {
+
+        private final Deque<CompletableFuture<List<? extends Content>>> window = new ArrayDeque<>();
+        private CompletableFuture<List<? extends Content>> last;
+        private boolean exhausted;
+
+        private PageIterator() {
+            last = CompletableFuture.supplyAsync(() -> source.loadPage(null, pageSize), executor);
+            window.addLast(last);
+            fillWindow(prefetchPages + 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (exhausted) {
+                return false;
+            }
+            fillWindow(1);
+            if (await(window.peekFirst()).isEmpty()) {
+                exhausted = true;
+                window.clear();
+            }
+            return !exhausted;
+        }
+
+        @Override
+        public List<? extends Content> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<? extends Content> page = await(window.pollFirst());
+            if (page.size() < pageSize) {
+                exhausted = true;
+                window.clear();
+            } else {
+                fillWindow(prefetchPages);
+            }
+            return page;
+        }
+
+        private void fillWindow(int size) {
+            while (window.size() < size) {
+                last = last.thenApplyAsync(this::loadNextPage, executor);
+                window.addLast(last);
+            }
+        }
+
+        private List<? extends Content> loadNextPage(List<? extends Content> previous) {
+            if (previous.size() < pageSize) {
+                return List.of();
+            }
+            return source.loadPage(previous.get(previous.size() - 1), pageSize);
+        }
+
+        private List<? extends Content> await(CompletableFuture<List<? extends Content>> page) {
+            try {
+                return page.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
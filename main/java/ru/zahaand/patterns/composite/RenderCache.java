@@ -0,0 +1,88 @@
+package ru.zahaand.patterns.composite;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Класс {@code RenderCache} хранит последнее сформированное представление элемента контента
+ * и признак его актуальности.
+ *
+ * <p>Кэши элементов связаны с кэшами групп, в которые входят элементы. Изменение элемента делает неактуальными
+ * его кэш и кэши всех групп выше по дереву, поэтому при следующем формировании представления заново вычисляются
+ * только измененные поддеревья. Ссылки на кэши групп слабые: группа или декоратор, ставшие недостижимыми,
+ * не удерживаются элементом и удаляются из его связей сборщиком мусора, даже если связь не была разорвана явно.
+ *
+ * <p>Актуальность определяется номером версии: каждое изменение увеличивает версию, а представление сохраняется
+ * вместе с версией, для которой оно было вычислено. Если элемент изменился во время вычисления, сохраненное
+ * представление не будет считаться актуальным, поэтому кэш безопасен при конкурентном формировании
+ * и изменении.
+ */
+public final class RenderCache {
+
+    private static final RenderCache[] NO_PARENTS = new RenderCache[0];
+
+    private final Set<RenderCache> parents = Collections.newSetFromMap(new WeakHashMap<>());
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Возвращает сохраненное представление, если оно актуально, иначе вычисляет и сохраняет его.
+     *
+     * @param renderer функция формирования представления
+     * @return актуальное представление
+     */
+    public String get(Supplier<String> renderer) {
+        long currentVersion = version.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version == currentVersion) {
+            return current.render;
+        }
+
+        String render = renderer.get();
+        if (version.get() == currentVersion) {
+            snapshot = new Snapshot(currentVersion, render);
+        }
+        return render;
+    }
+
+    /**
+     * Помечает представление и представления всех групп выше по дереву неактуальными.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+        RenderCache[] current;
+        synchronized (parents) {
+            current = parents.isEmpty() ? NO_PARENTS : parents.toArray(NO_PARENTS);
+        }
+        for (RenderCache parent : current) {
+            parent.invalidate();
+        }
+    }
+
+    public boolean isDirty() {
+        Snapshot current = snapshot;
+        return current == null || current.version != version.get();
+    }
+
+    /**
+     * Связывает кэш с кэшем группы, которая должна становиться неактуальной вместе с ним.
+     */
+    public void addParent(RenderCache parent) {
+        synchronized (parents) {
+            parents.add(parent);
+        }
+    }
+
+    public void removeParent(RenderCache parent) {
+        synchronized (parents) {
+            parents.remove(parent);
+        }
+    }
+
+    private record Snapshot(long version, String render) {
+    }
+}
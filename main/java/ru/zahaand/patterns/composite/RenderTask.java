@@ -0,0 +1,69 @@
+package ru.zahaand.patterns.composite;
+
+import ru.zahaand.patterns.DisplayableContent;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Задача fork/join, формирующая представления диапазона дочерних элементов {@link ContentComposite}.
+ *
+ * <p>Диапазон, размер которого превышает порог, делится пополам, и половины обрабатываются параллельно.
+ * Диапазон не больше порога обрабатывается последовательно; вложенная группа обрабатывается отдельной задачей
+ * с тем же порогом, поэтому большие группы делятся на любом уровне вложенности. Представление каждого элемента
+ * записывается в ячейку массива с его индексом, поэтому порядок элементов в итоговом представлении сохраняется
+ * независимо от порядка выполнения задач. Актуальные кэшированные представления групп и элементов
+ * не вычисляются повторно.
+ */
+final class RenderTask extends RecursiveAction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final List<DisplayableContent> components;
+    private final String[] renders;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    RenderTask(List<DisplayableContent> components, String[] renders, int from, int to, int threshold) {
+        this.components = components;
+        this.renders = renders;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Формирует представление группы, разделяя работу при необходимости.
+     * Вызывается внутри пула fork/join.
+     */
+    static String render(ContentComposite composite, int threshold) {
+        return composite.cachedRender(() -> {
+            List<DisplayableContent> components = composite.getComponents();
+            String[] renders = new String[components.size()];
+            new RenderTask(components, renders, 0, renders.length, threshold).invoke();
+            return ContentComposite.join(renders);
+        });
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            for (int i = from; i < to; i++) {
+                DisplayableContent component = components.get(i);
+                if (component instanceof ContentComposite composite) {
+                    renders[i] = render(composite, threshold);
+                } else {
+                    renders[i] = component.render();
+                }
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(new RenderTask(components, renders, from, middle, threshold),
+                new RenderTask(components, renders, middle, to, threshold));
+    }
+}
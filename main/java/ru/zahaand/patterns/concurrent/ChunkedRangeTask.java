@@ -0,0 +1,67 @@
+package ru.zahaand.patterns.concurrent;
+
+import java.io.Serial;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Задача fork/join, обрабатывающая диапазон индексов порциями.
+ *
+ * <p>Диапазон, размер которого превышает размер порции, делится пополам, и половины обрабатываются параллельно.
+ * Диапазон не больше порции передается обработчику целиком и обрабатывается последовательно в одном потоке.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     pool.invoke(new ChunkedRangeTask(0, contents.size(), 256, (from, to) -&gt; {
+ *         for (int i = from; i &lt; to; i++) {
+ *             strategy.processContent(contents.get(i));
+ *         }
+ *     }));
+ * </pre>
+ */
+public final class ChunkedRangeTask extends RecursiveAction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+    private final Chunk chunk;
+
+    /**
+     * @param from      начало диапазона, включительно
+     * @param to        конец диапазона, не включительно
+     * @param chunkSize максимальный размер порции, обрабатываемой последовательно
+     * @param chunk     обработчик порции
+     */
+    public ChunkedRangeTask(int from, int to, int chunkSize, Chunk chunk) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+        this.chunk = chunk;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= chunkSize) {
+            chunk.process(from, to);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(new ChunkedRangeTask(from, middle, chunkSize, chunk),
+                new ChunkedRangeTask(middle, to, chunkSize, chunk));
+    }
+
+    /**
+     * Обработчик порции индексов [{@code from}, {@code to}).
+     */
+    @FunctionalInterface
+    public interface Chunk {
+
+        void process(int from, int to);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.zahaand.patterns.decorator;
 
 import ru.zahaand.patterns.DisplayableContent;
+import ru.zahaand.patterns.composite.RenderCache;
 import ru.zahaand.patterns.decorator.impl.EncryptContentDecorator;
 import ru.zahaand.patterns.domain.Content;
 
@@ -19,8 +20,11 @@ public abstract class ContentDecorator implements DisplayableContent {
 
     protected Content decoratedContent;
 
+    private final RenderCache renderCache = new RenderCache();
+
     protected ContentDecorator(Content decoratedContent) {
         this.decoratedContent = decoratedContent;
+        decoratedContent.getRenderCache().addParent(renderCache);
     }
 
     /**
@@ -32,4 +36,18 @@ public abstract class ContentDecorator implements DisplayableContent {
     public void display() {
         decoratedContent.display();
     }
+
+    /**
+     * Делегирует формирование представления декорируемому объекту. Представление кэшируется
+     * и становится неактуальным при изменении декорируемого объекта.
+     */
+    @Override
+    public String render() {
+        return renderCache.get(decoratedContent::render);
+    }
+
+    @Override
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
 }
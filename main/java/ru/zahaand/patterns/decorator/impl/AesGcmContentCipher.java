@@ -0,0 +1,342 @@
+package ru.zahaand.patterns.decorator.impl;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Класс {@code AesGcmContentCipher} выполняет потоковое шифрование содержимого контента алгоритмом AES-GCM.
+ *
+ * <p>Содержимое делится на сегменты фиксированного размера, и каждый сегмент шифруется отдельно со своим тегом
+ * аутентификации. Поэтому и шифрование, и расшифровка больших изображений выполняются с буфером размера сегмента,
+ * без загрузки всего содержимого в память, а поврежденный сегмент обнаруживается сразу при чтении.
+ *
+ * <p>Формат результата: заголовок из размера сегмента (4 байта) и случайной соли (32 байта), затем сегменты,
+ * каждый из которых длиннее исходного на 16 байт тега. Каждое сообщение шифруется собственным ключом, выведенным
+ * из основного ключа и соли по HKDF-SHA256, а вектор инициализации сегмента — его номер. Поэтому один основной
+ * ключ можно использовать для практически неограниченного числа сообщений: совпадение пары ключ и вектор
+ * инициализации требует совпадения 256-битной соли, а не 64-битного случайного префикса. Заголовок и признак
+ * последнего сегмента входят в дополнительные аутентифицируемые данные, поэтому перестановка, удаление и усечение
+ * сегментов обнаруживаются при расшифровке.
+ *
+ * <p>Создание {@link Cipher} — дорогая операция, поэтому каждый поток использует один и тот же экземпляр,
+ * переинициализируя его для каждого сегмента. Экземпляр класса потокобезопасен.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     AesGcmContentCipher cipher = new AesGcmContentCipher(AesGcmContentCipher.generateKey());
+ *     byte[] encrypted = cipher.encrypt(ByteBuffer.wrap(data));
+ *     byte[] decrypted = cipher.decrypt(encrypted);
+ * </pre>
+ */
+public final class AesGcmContentCipher {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+    /**
+     * Максимальный размер сегмента. Размер сегмента читается из заголовка до проверки подлинности, поэтому
+     * ограничение не позволяет поврежденному заголовку вызвать выделение гигабайтов памяти или переполнение.
+     */
+    public static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    public static final int SALT_SIZE = 32;
+    public static final int HEADER_SIZE = Integer.BYTES + SALT_SIZE;
+    public static final int TAG_SIZE = 16;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String HMAC = "HmacSHA256";
+    private static final byte[] KEY_INFO = "content-cipher-message-key".getBytes(StandardCharsets.US_ASCII);
+    private static final int KEY_SIZE = 256;
+    private static final int IV_SIZE = 12;
+    private static final byte[] LAST = {1};
+    private static final byte[] NOT_LAST = {0};
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    });
+
+    private final SecretKeySpec key;
+    private final int segmentSize;
+
+    public AesGcmContentCipher(SecretKey key) {
+        this(key, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param key         основной ключ AES; ключ должен допускать получение байтов ({@link SecretKey#getEncoded()})
+     * @param segmentSize размер сегмента открытого текста в байтах, не больше {@link #MAX_SEGMENT_SIZE}
+     */
+    public AesGcmContentCipher(SecretKey key, int segmentSize) {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be in [1, " + MAX_SEGMENT_SIZE + "]");
+        }
+        byte[] encoded = key.getEncoded();
+        if (encoded == null || encoded.length == 0) {
+            throw new IllegalArgumentException("Key must expose its encoded form");
+        }
+        this.key = new SecretKeySpec(encoded, HMAC);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @return новый случайный 256-битный ключ AES
+     */
+    public static SecretKey generateKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(KEY_SIZE, RANDOM);
+            return generator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+    }
+
+    /**
+     * @param plaintextSize размер открытого текста в байтах
+     * @return размер результата шифрования
+     */
+    public long encryptedSize(long plaintextSize) {
+        long segments = Math.max(1, (plaintextSize + segmentSize - 1) / segmentSize);
+        return HEADER_SIZE + plaintextSize + segments * TAG_SIZE;
+    }
+
+    /**
+     * Шифрует содержимое буфера от текущей позиции до границы в новый массив. Позиция буфера не изменяется.
+     */
+    public byte[] encrypt(ByteBuffer source) {
+        long size = encryptedSize(source.remaining());
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Content is too large to be encrypted into an array: " + size);
+        }
+        byte[] encrypted = new byte[(int) size];
+        ByteBuffer target = ByteBuffer.wrap(encrypted);
+        ByteBuffer in = source.duplicate();
+        ByteBuffer header = header();
+        SecretKey messageKey = messageKey(header);
+        target.put(header.duplicate());
+
+        int index = 0;
+        boolean last;
+        do {
+            int length = Math.min(segmentSize, in.remaining());
+            last = length == in.remaining();
+            ByteBuffer segment = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            encryptSegment(messageKey, header, index++, last, segment, target);
+        } while (!last);
+        return encrypted;
+    }
+
+    /**
+     * Шифрует содержимое буфера от текущей позиции до границы и записывает результат в канал по сегментам.
+     * Позиция буфера не изменяется. Буфер может быть прямым или отображенным в память: содержимое не копируется
+     * в кучу целиком.
+     */
+    public void encrypt(ByteBuffer source, WritableByteChannel target) {
+        ByteBuffer in = source.duplicate();
+        ByteBuffer header = header();
+        SecretKey messageKey = messageKey(header);
+        ByteBuffer out = ByteBuffer.allocate(segmentSize + TAG_SIZE);
+
+        try {
+            writeFully(target, header.duplicate());
+            int index = 0;
+            boolean last;
+            do {
+                int length = Math.min(segmentSize, in.remaining());
+                last = length == in.remaining();
+                ByteBuffer segment = in.slice(in.position(), length);
+                in.position(in.position() + length);
+                out.clear();
+                encryptSegment(messageKey, header, index++, last, segment, out);
+                writeFully(target, out.flip());
+            } while (!last);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Расшифровывает содержимое, полученное методом {@link #encrypt(ByteBuffer)}.
+     *
+     * @throws IllegalArgumentException если содержимое повреждено или зашифровано другим ключом
+     */
+    public byte[] decrypt(byte[] encrypted) {
+        ByteBuffer in = ByteBuffer.wrap(encrypted);
+        ByteBuffer header = readHeader(in);
+        SecretKey messageKey = messageKey(header);
+        int encryptedSegmentSize = header.getInt(0) + TAG_SIZE;
+        long segments = Math.max(1, (in.remaining() + encryptedSegmentSize - 1) / encryptedSegmentSize);
+        long size = in.remaining() - segments * TAG_SIZE;
+        if (size < 0) {
+            throw new IllegalArgumentException("Encrypted content is truncated");
+        }
+
+        ByteBuffer target = ByteBuffer.allocate((int) size);
+        int index = 0;
+        boolean last;
+        do {
+            int length = Math.min(encryptedSegmentSize, in.remaining());
+            last = length == in.remaining();
+            ByteBuffer segment = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            decryptSegment(messageKey, header, index++, last, segment, target);
+        } while (!last);
+        return target.array();
+    }
+
+    /**
+     * Расшифровывает содержимое, читая его из канала по сегментам, и записывает открытый текст в канал.
+     *
+     * @throws IllegalArgumentException если содержимое повреждено или зашифровано другим ключом
+     */
+    public void decrypt(ReadableByteChannel source, WritableByteChannel target) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (readFully(source, header) < HEADER_SIZE) {
+                throw new IllegalArgumentException("Encrypted content is truncated");
+            }
+            header = readHeader(header.flip());
+            SecretKey messageKey = messageKey(header);
+            int encryptedSegmentSize = header.getInt(0) + TAG_SIZE;
+
+            // На один байт больше сегмента: по нему видно, что за сегментом есть продолжение
+            ByteBuffer in = ByteBuffer.allocate(encryptedSegmentSize + 1);
+            ByteBuffer out = ByteBuffer.allocate(encryptedSegmentSize - TAG_SIZE);
+            int index = 0;
+            boolean last;
+            do {
+                readFully(source, in);
+                in.flip();
+                last = in.remaining() <= encryptedSegmentSize;
+                int length = Math.min(encryptedSegmentSize, in.remaining());
+                out.clear();
+                decryptSegment(messageKey, header, index++, last, in.slice(0, length), out);
+                writeFully(target, out.flip());
+                in.position(length).compact();
+            } while (!last);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        byte[] salt = new byte[SALT_SIZE];
+        RANDOM.nextBytes(salt);
+        header.putInt(segmentSize).put(salt);
+        return header.flip();
+    }
+
+    /**
+     * Выводит ключ сообщения из основного ключа и соли заголовка по HKDF-SHA256 (RFC 5869).
+     */
+    private SecretKey messageKey(ByteBuffer header) {
+        Mac mac = MACS.get();
+        try {
+            byte[] salt = new byte[SALT_SIZE];
+            header.get(Integer.BYTES, salt);
+            mac.init(new SecretKeySpec(salt, HMAC));
+            byte[] pseudoRandomKey = mac.doFinal(key.getEncoded());
+
+            mac.init(new SecretKeySpec(pseudoRandomKey, HMAC));
+            mac.update(KEY_INFO);
+            mac.update((byte) 1);
+            return new SecretKeySpec(mac.doFinal(), 0, KEY_SIZE / Byte.SIZE, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive message key", e);
+        }
+    }
+
+    private static ByteBuffer readHeader(ByteBuffer in) {
+        if (in.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Encrypted content is truncated");
+        }
+        ByteBuffer header = in.slice(in.position(), HEADER_SIZE);
+        in.position(in.position() + HEADER_SIZE);
+        int segmentSize = header.getInt(0);
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Encrypted content has an invalid header");
+        }
+        return header;
+    }
+
+    private static void encryptSegment(SecretKey messageKey, ByteBuffer header, int index, boolean last,
+                                       ByteBuffer in, ByteBuffer out) {
+        try {
+            Cipher cipher = init(Cipher.ENCRYPT_MODE, messageKey, header, index, last);
+            cipher.doFinal(in, out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt content", e);
+        }
+    }
+
+    private static void decryptSegment(SecretKey messageKey, ByteBuffer header, int index, boolean last,
+                                       ByteBuffer in, ByteBuffer out) {
+        if (in.remaining() < TAG_SIZE) {
+            throw new IllegalArgumentException("Encrypted content is truncated");
+        }
+        try {
+            Cipher cipher = init(Cipher.DECRYPT_MODE, messageKey, header, index, last);
+            cipher.doFinal(in, out);
+        } catch (AEADBadTagException e) {
+            throw new IllegalArgumentException("Encrypted content is corrupted or was encrypted with another key", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to decrypt content", e);
+        }
+    }
+
+    private static Cipher init(int mode, SecretKey messageKey, ByteBuffer header, int index, boolean last)
+            throws GeneralSecurityException {
+        // Ключ сообщения уникален, поэтому вектору инициализации достаточно номера сегмента
+        byte[] iv = new byte[IV_SIZE];
+        ByteBuffer.wrap(iv).putInt(IV_SIZE - Integer.BYTES, index);
+
+        Cipher cipher = CIPHERS.get();
+        cipher.init(mode, messageKey, new GCMParameterSpec(TAG_SIZE * Byte.SIZE, iv));
+        cipher.updateAAD(header.duplicate());
+        cipher.updateAAD(last ? LAST : NOT_LAST);
+        return cipher;
+    }
+
+    private static int readFully(ReadableByteChannel source, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
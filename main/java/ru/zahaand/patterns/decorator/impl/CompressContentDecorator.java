@@ -0,0 +1,92 @@
+package ru.zahaand.patterns.decorator.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.decorator.ContentDecorator;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.domain.impl.ImageContent;
+import ru.zahaand.patterns.enums.CompressionCodec;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.model.Image;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Класс {@code CompressContentDecorator} представляет собой конкретный Decorator.
+ * Добавляет функциональность сжатия содержимого к декорируемому объекту типа Content.
+ *
+ * <p>Способ сжатия выбирается по типу контента и формату изображения ({@link ContentCompressor}):
+ * текст сжимается всегда, а уже сжатые изображения — только если это дает заметную экономию.
+ * Декоратор можно комбинировать с {@link EncryptContentDecorator}.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     Content textContent = new TextContent("Sample text", user);
+ *     CompressContentDecorator compressedContent = new CompressContentDecorator(textContent);
+ *     byte[] compressed = compressedContent.compress();
+ * </pre>
+ */
+@Slf4j
+public class CompressContentDecorator extends ContentDecorator {
+
+    private final ContentCompressor compressor;
+
+    public CompressContentDecorator(Content decoratedContent) {
+        this(decoratedContent, new ContentCompressor());
+    }
+
+    public CompressContentDecorator(Content decoratedContent, ContentCompressor compressor) {
+        super(decoratedContent);
+        this.compressor = compressor;
+    }
+
+    /**
+     * Переопределенный метод.
+     * Добавляет логику сжатия перед делегированием вызова отображения контента декорируемому объекту.
+     */
+    @Override
+    public void display() {
+        log.info("Compressing content...");
+        super.display();
+    }
+
+    /**
+     * @return способ сжатия, выбранный для содержимого декорируемого контента
+     */
+    public CompressionCodec getCodec() {
+        return codec(EncryptContentDecorator.payloadOf(decoratedContent));
+    }
+
+    /**
+     * Сжимает содержимое декорируемого контента: текст в кодировке UTF-8 или байты изображения.
+     *
+     * @return сжатое содержимое
+     */
+    public byte[] compress() {
+        ByteBuffer payload = EncryptContentDecorator.payloadOf(decoratedContent);
+        return compressor.compress(codec(payload), payload);
+    }
+
+    /**
+     * Сжимает содержимое декорируемого контента и записывает его в канал по частям.
+     * Изображение, содержимое которого отображено в память, не копируется в кучу целиком.
+     *
+     * @param target канал для записи сжатого содержимого
+     */
+    public void compressTo(WritableByteChannel target) {
+        ByteBuffer payload = EncryptContentDecorator.payloadOf(decoratedContent);
+        compressor.compress(codec(payload), payload, target);
+    }
+
+    public ContentCompressor getCompressor() {
+        return compressor;
+    }
+
+    private CompressionCodec codec(ByteBuffer payload) {
+        if (decoratedContent instanceof ImageContent imageContent) {
+            Image image = imageContent.getImage();
+            return compressor.codecFor(ContentType.IMAGE, image == null ? null : image.getFormat(), payload);
+        }
+        return compressor.codecFor(ContentType.TEXT, null, payload);
+    }
+}
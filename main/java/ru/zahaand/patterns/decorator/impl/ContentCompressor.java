@@ -0,0 +1,243 @@
+package ru.zahaand.patterns.decorator.impl;
+
+import ru.zahaand.patterns.enums.CompressionCodec;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.enums.ImageFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Класс {@code ContentCompressor} выбирает способ сжатия содержимого контента и выполняет потоковое
+ * сжатие и распаковку.
+ *
+ * <p>Текст хорошо сжимается, поэтому всегда сжимается алгоритмом DEFLATE. Изображения JPEG, PNG и GIF уже сжаты
+ * своими форматами, поэтому сначала сжимается небольшой начальный фрагмент содержимого, и все изображение
+ * сжимается, только если экономия на фрагменте не меньше порога. Иначе изображение сохраняется без сжатия,
+ * и процессорное время на заведомо бесполезное сжатие не тратится.
+ *
+ * <p>Формат результата: байт с порядковым номером {@link CompressionCodec}, затем содержимое, сжатое
+ * DEFLATE без заголовка zlib, или исходное содержимое.
+ *
+ * <p>Каждый поток использует собственные {@link Deflater}, {@link Inflater} и прямые буферы, которые сбрасываются
+ * после каждой операции, поэтому нативная память не выделяется заново для каждого элемента контента.
+ * Экземпляр класса потокобезопасен.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     ContentCompressor compressor = new ContentCompressor();
+ *     CompressionCodec codec = compressor.codecFor(ContentType.IMAGE, ImageFormat.PNG, image.asByteBuffer());
+ *     byte[] compressed = compressor.compress(codec, image.asByteBuffer());
+ *     byte[] content = compressor.decompress(compressed);
+ * </pre>
+ */
+public final class ContentCompressor {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+    public static final double DEFAULT_MIN_SAVING = 0.1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final CompressionCodec[] CODECS = CompressionCodec.values();
+
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<ByteBuffer> INPUT_BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final ThreadLocal<ByteBuffer> OUTPUT_BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final int sampleSize;
+    private final double minSaving;
+
+    public ContentCompressor() {
+        this(DEFAULT_SAMPLE_SIZE, DEFAULT_MIN_SAVING);
+    }
+
+    /**
+     * @param sampleSize размер начального фрагмента уже сжатого изображения, по которому оценивается экономия
+     * @param minSaving  минимальная доля экономии на фрагменте, при которой изображение сжимается
+     */
+    public ContentCompressor(int sampleSize, double minSaving) {
+        if (sampleSize <= 0 || minSaving < 0 || minSaving >= 1) {
+            throw new IllegalArgumentException("Sample size must be positive and min saving must be in [0, 1)");
+        }
+        this.sampleSize = sampleSize;
+        this.minSaving = minSaving;
+    }
+
+    /**
+     * Выбирает способ сжатия содержимого. Позиция буфера не изменяется.
+     *
+     * @param type    тип контента
+     * @param format  формат изображения; {@code null} для текста и для изображения неизвестного формата,
+     *                которое оценивается по фрагменту так же, как изображения известных форматов
+     * @param payload содержимое
+     * @return способ сжатия
+     */
+    public CompressionCodec codecFor(ContentType type, ImageFormat format, ByteBuffer payload) {
+        if (!payload.hasRemaining()) {
+            return CompressionCodec.STORED;
+        }
+        return switch (type) {
+            case TEXT -> CompressionCodec.DEFLATE;
+            case IMAGE -> format == null ? sampledCodec(payload) : switch (format) {
+                case JPEG, PNG, GIF -> sampledCodec(payload);
+            };
+        };
+    }
+
+    /**
+     * Сжимает содержимое буфера от текущей позиции до границы в новый массив. Позиция буфера не изменяется.
+     */
+    public byte[] compress(CompressionCodec codec, ByteBuffer source) {
+        ByteArrayOutputStream target = new ByteArrayOutputStream(source.remaining() / 2 + 1);
+        compress(codec, source, Channels.newChannel(target));
+        return target.toByteArray();
+    }
+
+    /**
+     * Сжимает содержимое буфера от текущей позиции до границы и записывает результат в канал по частям.
+     * Позиция буфера не изменяется. Буфер может быть прямым или отображенным в память.
+     */
+    public void compress(CompressionCodec codec, ByteBuffer source, WritableByteChannel target) {
+        ByteBuffer in = source.duplicate();
+        try {
+            writeFully(target, ByteBuffer.wrap(new byte[]{(byte) codec.ordinal()}));
+            switch (codec) {
+                case STORED -> writeFully(target, in);
+                case DEFLATE -> deflate(in, target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Распаковывает содержимое, полученное методом {@link #compress(CompressionCodec, ByteBuffer)}.
+     *
+     * @throws IllegalArgumentException если содержимое повреждено
+     */
+    public byte[] decompress(byte[] compressed) {
+        ByteArrayOutputStream target = new ByteArrayOutputStream(compressed.length * 2);
+        decompress(Channels.newChannel(new ByteArrayInputStream(compressed)), Channels.newChannel(target));
+        return target.toByteArray();
+    }
+
+    /**
+     * Распаковывает содержимое, читая его из канала по частям, и записывает результат в канал.
+     *
+     * @throws IllegalArgumentException если содержимое повреждено
+     */
+    public void decompress(ReadableByteChannel source, WritableByteChannel target) {
+        ByteBuffer in = INPUT_BUFFERS.get().clear();
+        try {
+            if (read(source, in.limit(1)) <= 0) {
+                throw new IllegalArgumentException("Compressed content is truncated");
+            }
+            int codec = in.get(0);
+            if (codec < 0 || codec >= CODECS.length) {
+                throw new IllegalArgumentException("Unknown compression codec: " + codec);
+            }
+            switch (CODECS[codec]) {
+                case STORED -> {
+                    while (read(source, in.clear()) >= 0) {
+                        writeFully(target, in.flip());
+                    }
+                }
+                case DEFLATE -> inflate(source, target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompressionCodec sampledCodec(ByteBuffer payload) {
+        return sampledSaving(payload) >= minSaving ? CompressionCodec.DEFLATE : CompressionCodec.STORED;
+    }
+
+    private double sampledSaving(ByteBuffer payload) {
+        int length = Math.min(sampleSize, payload.remaining());
+        ByteBuffer sample = payload.slice(payload.position(), length);
+        ByteBuffer out = OUTPUT_BUFFERS.get();
+        Deflater deflater = deflater(Deflater.BEST_SPEED);
+        long compressed = 0;
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(out.clear());
+            }
+        } finally {
+            deflater.reset();
+        }
+        return 1 - (double) compressed / length;
+    }
+
+    private void deflate(ByteBuffer in, WritableByteChannel target) throws IOException {
+        ByteBuffer out = OUTPUT_BUFFERS.get();
+        Deflater deflater = deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(in);
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflater.deflate(out.clear());
+                writeFully(target, out.flip());
+            }
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private void inflate(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        ByteBuffer in = INPUT_BUFFERS.get();
+        ByteBuffer out = OUTPUT_BUFFERS.get();
+        Inflater inflater = INFLATERS.get();
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (read(source, in.clear()) < 0) {
+                        throw new IllegalArgumentException("Compressed content is truncated");
+                    }
+                    inflater.setInput(in.flip());
+                }
+                inflater.inflate(out.clear());
+                writeFully(target, out.flip());
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Compressed content is corrupted", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    private static Deflater deflater(int level) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    private static int read(ReadableByteChannel source, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer);
+            if (read < 0) {
+                return total == 0 ? -1 : total;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
@@ -3,6 +3,14 @@ package ru.zahaand.patterns.decorator.impl;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.decorator.ContentDecorator;
 import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.domain.impl.ImageContent;
+import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.model.Image;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <h1>Паттерн Decorator. Декоратор</h1>
@@ -60,8 +68,21 @@ import ru.zahaand.patterns.domain.Content;
 @Slf4j
 public class EncryptContentDecorator extends ContentDecorator {
 
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final AesGcmContentCipher cipher;
+
+    /**
+     * Создает декоратор, шифрующий контент новым случайным ключом.
+     * Для расшифровки ключ доступен через {@link #getCipher()}.
+     */
     public EncryptContentDecorator(Content decoratedContent) {
+        this(decoratedContent, new AesGcmContentCipher(AesGcmContentCipher.generateKey()));
+    }
+
+    public EncryptContentDecorator(Content decoratedContent, AesGcmContentCipher cipher) {
         super(decoratedContent);
+        this.cipher = cipher;
     }
 
     /**
@@ -73,4 +94,73 @@ public class EncryptContentDecorator extends ContentDecorator {
         log.info("Encrypting content...");
         super.display();
     }
+
+    /**
+     * Шифрует содержимое декорируемого контента: текст в кодировке UTF-8 или байты изображения.
+     *
+     * @return зашифрованное содержимое
+     */
+    public byte[] encrypt() {
+        return encrypt(decoratedContent, cipher);
+    }
+
+    /**
+     * Шифрует содержимое декорируемого контента и записывает его в канал по сегментам.
+     * Изображение, содержимое которого отображено в память, не копируется в кучу целиком.
+     *
+     * @param target канал для записи зашифрованного содержимого
+     */
+    public void encryptTo(WritableByteChannel target) {
+        cipher.encrypt(payloadOf(decoratedContent), target);
+    }
+
+    public AesGcmContentCipher getCipher() {
+        return cipher;
+    }
+
+    /**
+     * Шифрует содержимое нескольких элементов контента параллельно в общем пуле fork/join.
+     *
+     * @see #encryptAll(List, AesGcmContentCipher, ForkJoinPool)
+     */
+    public static List<byte[]> encryptAll(List<? extends Content> contents, AesGcmContentCipher cipher) {
+        return encryptAll(contents, cipher, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Шифрует содержимое нескольких элементов контента параллельно. Каждый поток пула использует
+     * собственный экземпляр {@link javax.crypto.Cipher}, поэтому элементы шифруются без блокировок.
+     *
+     * @param contents элементы контента
+     * @param cipher   шифр
+     * @param pool     пул, в котором выполняется шифрование
+     * @return зашифрованное содержимое в порядке элементов
+     */
+    public static List<byte[]> encryptAll(List<? extends Content> contents, AesGcmContentCipher cipher,
+                                          ForkJoinPool pool) {
+        return pool.submit(() -> contents.parallelStream()
+                        .map(content -> encrypt(content, cipher))
+                        .toList())
+                .join();
+    }
+
+    private static byte[] encrypt(Content content, AesGcmContentCipher cipher) {
+        return cipher.encrypt(payloadOf(content));
+    }
+
+    /**
+     * @return содержимое контента в виде буфера только для чтения без копирования
+     */
+    static ByteBuffer payloadOf(Content content) {
+        if (content instanceof TextContent text) {
+            byte[] value = text.getUtf8();
+            return value == null ? EMPTY : ByteBuffer.wrap(value).asReadOnlyBuffer();
+        }
+        if (content instanceof ImageContent imageContent) {
+            Image image = imageContent.getImage();
+            ByteBuffer buffer = image == null ? null : image.asByteBuffer();
+            return buffer == null ? EMPTY : buffer;
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + content.getClass().getSimpleName());
+    }
 }
@@ -1,10 +1,16 @@
 package ru.zahaand.patterns.domain;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.DisplayableContent;
+import ru.zahaand.patterns.composite.RenderCache;
 import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.id.IdGenerators;
 import ru.zahaand.patterns.prototype.EntityPrototype;
 import ru.zahaand.patterns.strategy.ContentProcessingStrategy;
 import ru.zahaand.patterns.visitor.ContentVisitor;
@@ -14,14 +20,19 @@ import java.util.UUID;
 @Slf4j
 @Data
 @NoArgsConstructor
-public abstract class Content implements EntityPrototype, DisplayableContent {
+public abstract class Content implements EntityPrototype, DisplayableContent, Cloneable {
 
     private UUID id;
     private ContentType contentType;
     protected User user;
 
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private RenderCache renderCache = new RenderCache();
+
     protected Content(ContentType contentType, User user) {
-        id = UUID.randomUUID();
+        id = IdGenerators.nextId();
         this.contentType = contentType;
         this.user = user;
     }
@@ -30,19 +41,29 @@ public abstract class Content implements EntityPrototype, DisplayableContent {
      * Реализация метода clone интерфейса {@link EntityPrototype}, который является реализацией паттерна Prototype.
      * Метод предназначен для создания копии объекта класса Content, что позволяет создавать
      * независимые экземпляры объектов с сохранением их состояния, но без прямого влияния на оригинальные объекты.
+     *
+     * <p>Копия получает новый идентификатор и собственный кэш представления. Изменяемые данные наследников
+     * копируются лениво: например, содержимое изображения разделяется с оригиналом до первой записи
+     * ({@link ru.zahaand.patterns.model.Image#copy()}), поэтому массовое создание контента по шаблону не копирует
+     * содержимое, а изменение копии не затрагивает оригинал. Пользователь является внешней сущностью
+     * и не копируется.
      * <p> Пример использования:
      * <pre>
-     *     Content originalContent = new Content(ContentType.TEXT, user);
-     *     EntityPrototype clonedContent = originalContent.clone();
+     *     Content originalContent = new TextContent("Sample text", user);
+     *     Content clonedContent = originalContent.clone();
      * </pre>
      *
-     * @return новый экземпляр объекта EntityPrototype, который является копией оригинального объекта.
-     * @throws CloneNotSupportedException в случае, если клонирование объекта не может быть выполнено.
+     * @return новый экземпляр {@link Content} того же класса, который является копией оригинального объекта.
+     * @throws RuntimeException в случае, если клонирование объекта не может быть выполнено; исходное
+     *                          {@link CloneNotSupportedException} передается как причина.
      */
     @Override
-    public EntityPrototype clone() {
+    public Content clone() {
         try {
-            return (EntityPrototype) super.clone();
+            Content clone = (Content) super.clone();
+            clone.id = IdGenerators.nextId();
+            clone.renderCache = new RenderCache();
+            return clone;
         } catch (CloneNotSupportedException e) {
             log.error("Content clone failed", e);
             throw new RuntimeException("Ошибка клонирования контента: " + e.getMessage(), e);
@@ -91,4 +112,12 @@ public abstract class Content implements EntityPrototype, DisplayableContent {
      */
     public abstract void acceptVisitor(ContentVisitor visitor);
 
+    /**
+     * Помечает представление контента неактуальным. Вызывается при изменении данных, от которых зависит
+     * {@link #render()}; сеттеры наследников вызывают его сами, остальной код — при изменении вложенных объектов.
+     */
+    public void invalidateRender() {
+        renderCache.invalidate();
+    }
+
 }
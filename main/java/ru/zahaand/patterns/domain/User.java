@@ -3,6 +3,7 @@ package ru.zahaand.patterns.domain;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.id.IdGenerators;
 import ru.zahaand.patterns.memento.UserContactsMemento;
 import ru.zahaand.patterns.observer.Observer;
 import ru.zahaand.patterns.state.UserState;
@@ -66,9 +67,11 @@ public class User implements Observer {
      * такие как {@code name}, {@code age}, {@code country}, {@code city} и {@code address}. После установки всех
      * необходимых параметров вызывается метод {@link #build()}, который создает и возвращает новый экземпляр класса {@link User}.
      *
+     * <p>Идентификатор можно не указывать: тогда он создается текущим генератором {@link IdGenerators}.
+     *
      * <p>Пример использования:
      * <pre>
-     * User user = new User.UserBuilder(UUID.randomUUID(), "+1 800 1234567", "test@example.ru")
+     * User user = new User.UserBuilder("+1 800 1234567", "test@example.ru")
      *         .name("Test Testov")
      *         .age(30)
      *         .country("Russia")
@@ -88,6 +91,10 @@ public class User implements Observer {
         private String city;
         private String address;
 
+        public UserBuilder(String mobilePhone, String email) {
+            this(IdGenerators.nextId(), mobilePhone, email);
+        }
+
         public UserBuilder(UUID uuid, String mobilePhone, String email) {
             this.uuid = uuid;
             this.mobilePhone = mobilePhone;
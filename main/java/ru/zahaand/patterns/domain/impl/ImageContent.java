@@ -32,6 +32,27 @@ public class ImageContent extends Content {
         log.info("Displaying IMAGE content. User: {}, Image format: {}", user,  image.getFormat());
     }
 
+    public void setImage(Image image) {
+        this.image = image;
+        invalidateRender();
+    }
+
+    @Override
+    public String render() {
+        return getRenderCache().get(() -> "IMAGE: " + image.getFormat() + " " + image.getPath());
+    }
+
+    /**
+     * Создает копию контента с новым идентификатором. Изображение копируется через {@link Image#copy()}
+     * и разделяет содержимое с оригиналом до первой записи.
+     */
+    @Override
+    public ImageContent clone() {
+        ImageContent clone = (ImageContent) super.clone();
+        clone.image = image == null ? null : image.copy();
+        return clone;
+    }
+
     @Override
     public void acceptVisitor(ContentVisitor visitor) {
         visitor.visit(this);
@@ -1,34 +1,216 @@
 package ru.zahaand.patterns.domain.impl;
 
-import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.domain.Content;
 import ru.zahaand.patterns.domain.User;
 import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.model.Rope;
 import ru.zahaand.patterns.visitor.ContentVisitor;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Текстовый контент.
+ *
+ * <p>Текст хранится в одном из трех представлений:
+ * <ul>
+ *     <li>строка — для обычного текста;</li>
+ *     <li>{@link Rope} — для больших документов: текст длиной от {@link #ROPE_THRESHOLD} символов переводится
+ *     в это представление при первом изменении через {@link #replace(int, int, CharSequence)}, после чего
+ *     изменения выполняются за O(log n) без копирования всего текста;</li>
+ *     <li>компактный массив UTF-8 ({@link #compact()}) — для хранения: текст на латинице с отдельными символами
+ *     других алфавитов занимает вдвое меньше места, чем строка.</li>
+ * </ul>
+ * {@link #getContent()} возвращает текст строкой в любом представлении, а {@link #getText()} — без копирования,
+ * если текст не сжат.
+ */
 @Slf4j
-@Getter
-@Setter
 @NoArgsConstructor
 public class TextContent extends Content {
 
-    private String content;
+    public static final int ROPE_THRESHOLD = 64 * 1024;
+
+    /**
+     * Текст в виде строки или {@link Rope}; {@code null}, если текст хранится в {@link #utf8} или не задан.
+     */
+    private CharSequence text;
+
+    /**
+     * Компактное представление текста в UTF-8.
+     */
+    private byte[] utf8;
 
     public TextContent(String data, User user) {
         super(ContentType.TEXT, user);
-        content = data;
+        text = data;
     }
 
     public TextContent(String content) {
-        this.content = content;
+        this.text = content;
     }
 
     @Override
     public void display() {
-        log.info("Displaying TEXT content. User: {}, Text: {}", user, content);
+        log.info("Displaying TEXT content. User: {}, Text: {}", user, getContent());
+    }
+
+    /**
+     * @return текст строкой; для большого документа или сжатого текста строка создается при каждом вызове
+     */
+    public String getContent() {
+        if (utf8 != null) {
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+        return text == null ? null : text.toString();
+    }
+
+    public void setContent(String content) {
+        this.text = content;
+        this.utf8 = null;
+        invalidateRender();
+    }
+
+    /**
+     * @return текст без копирования: строка или {@link Rope}; сжатый текст распаковывается в строку
+     */
+    public CharSequence getText() {
+        return utf8 != null ? getContent() : text;
+    }
+
+    /**
+     * @return длина текста в символах или {@code 0}, если текст не задан; сжатый текст не распаковывается
+     */
+    public int length() {
+        if (utf8 != null) {
+            int length = 0;
+            for (byte b : utf8) {
+                if ((b & 0xc0) != 0x80) {
+                    length += (b & 0xf8) == 0xf0 ? 2 : 1;
+                }
+            }
+            return length;
+        }
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * Заменяет символы в диапазоне [{@code start}, {@code end}) текстом. Текст длиной от {@link #ROPE_THRESHOLD}
+     * символов сначала переводится в {@link Rope}, и последующие изменения не копируют весь текст.
+     */
+    public void replace(int start, int end, CharSequence replacement) {
+        CharSequence current = getText();
+        if (current == null) {
+            current = "";
+        }
+        if (current instanceof Rope rope) {
+            text = rope.replace(start, end, replacement);
+        } else if (current.length() + replacement.length() >= ROPE_THRESHOLD) {
+            text = Rope.of(current).replace(start, end, replacement);
+        } else {
+            text = new StringBuilder(current.length() - (end - start) + replacement.length())
+                    .append(current, 0, start)
+                    .append(replacement)
+                    .append(current, end, current.length())
+                    .toString();
+        }
+        utf8 = null;
+        invalidateRender();
+    }
+
+    public void insert(int index, CharSequence insertion) {
+        replace(index, index, insertion);
+    }
+
+    public void delete(int start, int end) {
+        replace(start, end, "");
+    }
+
+    /**
+     * Переводит текст в компактное представление UTF-8.
+     */
+    public void compact() {
+        if (text != null) {
+            utf8 = getUtf8();
+            text = null;
+        }
+    }
+
+    /**
+     * @return текст в кодировке UTF-8; для сжатого текста возвращается хранимый массив, который нельзя изменять
+     */
+    public byte[] getUtf8() {
+        if (utf8 != null) {
+            return utf8;
+        }
+        return text == null ? null : text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Задает текст в компактном представлении UTF-8. Массив сохраняется без копирования и не должен изменяться.
+     */
+    public void setUtf8(byte[] utf8) {
+        this.utf8 = utf8;
+        this.text = null;
+        invalidateRender();
+    }
+
+    /**
+     * @return размер текста в кодировке UTF-8 в байтах, равный длине {@link #getUtf8()}; вычисляется
+     * без кодирования текста
+     */
+    public long getUtf8Length() {
+        if (utf8 != null) {
+            return utf8.length;
+        }
+        if (text == null) {
+            return 0;
+        }
+        return utf8Length(text instanceof Rope rope ? rope.chunks() : List.of(text));
+    }
+
+    public boolean isCompact() {
+        return utf8 != null;
+    }
+
+    /**
+     * Суррогатная пара может быть разделена между фрагментами {@link Rope}, поэтому старший суррогат учитывается
+     * вместе со следующим символом. Непарный суррогат кодируется одним байтом замены, как в {@link String#getBytes}.
+     */
+    private static long utf8Length(List<? extends CharSequence> chunks) {
+        long length = 0;
+        boolean highSurrogate = false;
+        for (CharSequence chunk : chunks) {
+            for (int i = 0, n = chunk.length(); i < n; i++) {
+                char c = chunk.charAt(i);
+                if (highSurrogate) {
+                    highSurrogate = false;
+                    if (Character.isLowSurrogate(c)) {
+                        length += 4;
+                        continue;
+                    }
+                    length++;
+                }
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    highSurrogate = true;
+                } else if (Character.isLowSurrogate(c)) {
+                    length++;
+                } else {
+                    length += 3;
+                }
+            }
+        }
+        return highSurrogate ? length + 1 : length;
+    }
+
+    @Override
+    public String render() {
+        return getRenderCache().get(() -> "TEXT: " + getContent());
     }
 
     @Override
@@ -0,0 +1,6 @@
+package ru.zahaand.patterns.enums;
+
+public enum ImageLoadMode {
+    HEAP,
+    MAPPED
+}
@@ -0,0 +1,7 @@
+package ru.zahaand.patterns.enums;
+
+public enum ReportFormat {
+    TEXT,
+    CSV,
+    NDJSON
+}
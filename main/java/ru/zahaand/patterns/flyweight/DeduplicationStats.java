@@ -0,0 +1,14 @@
+package ru.zahaand.patterns.flyweight;
+
+/**
+ * Снимок статистики {@link ImageContentStore}.
+ *
+ * @param distinctCount     количество различных хранимых буферов содержимого
+ * @param distinctBytes     суммарный размер различных буферов в байтах
+ * @param deduplicatedCount количество запросов, обслуженных уже хранимым буфером
+ * @param savedBytes        суммарный размер содержимого, которое не пришлось хранить повторно
+ * @param collisionCount    количество совпадений отпечатков при различном содержимом
+ */
+public record DeduplicationStats(int distinctCount, long distinctBytes, long deduplicatedCount,
+                                 long savedBytes, long collisionCount) {
+}
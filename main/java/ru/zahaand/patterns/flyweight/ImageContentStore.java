@@ -0,0 +1,114 @@
+package ru.zahaand.patterns.flyweight;
+
+import ru.zahaand.patterns.model.ImageFingerprint;
+import ru.zahaand.patterns.model.SharedImageContent;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс {@code ImageContentStore} представляет собой потокобезопасное хранилище содержимого изображений,
+ * адресуемого отпечатком содержимого.
+ *
+ * <p>Содержимое, совпадающее побайтно с уже хранимым, не сохраняется повторно: вызывающий код получает ссылку
+ * на существующий {@link SharedImageContent}. Буфер удаляется из хранилища, когда освобождена последняя ссылка.
+ * Совпадение отпечатков всегда проверяется сравнением содержимого, поэтому коллизия хеша не приводит к подмене
+ * изображения: содержимое с совпавшим отпечатком, но другими байтами, хранится отдельно и не разделяется.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     SharedImageContent sharedContent = imageContentStore.acquire(ByteBuffer.wrap(bytes));
+ *     Image image = Image.share(ImageFormat.JPEG, sharedContent, "/path/to/image1.jpg");
+ *     ...
+ *     imageContentStore.release(sharedContent);
+ * </pre>
+ */
+public class ImageContentStore {
+
+    private final ConcurrentMap<Long, SharedImageContent> contentsByFingerprint = new ConcurrentHashMap<>();
+
+    private final LongAdder distinctBytes = new LongAdder();
+    private final LongAdder deduplicatedCount = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+    private final LongAdder collisionCount = new LongAdder();
+
+    /**
+     * Возвращает общий буфер с переданным содержимым, увеличивая счетчик его ссылок.
+     * Если такое содержимое еще не хранится, буфер создается поверх переданного без копирования.
+     *
+     * @param content содержимое от текущей позиции до границы; не должно изменяться после вызова
+     * @return общий буфер, ссылкой на который теперь владеет вызывающий код
+     */
+    public SharedImageContent acquire(ByteBuffer content) {
+        return acquire(content, ImageFingerprint.of(content));
+    }
+
+    /**
+     * То же, что {@link #acquire(ByteBuffer)}, но с заранее вычисленным отпечатком содержимого.
+     *
+     * @param content     содержимое от текущей позиции до границы
+     * @param fingerprint отпечаток содержимого, вычисленный {@link ImageFingerprint#of(ByteBuffer)}
+     * @return общий буфер, ссылкой на который теперь владеет вызывающий код
+     */
+    public SharedImageContent acquire(ByteBuffer content, long fingerprint) {
+        int size = content.remaining();
+        SharedImageContent[] acquired = new SharedImageContent[1];
+
+        contentsByFingerprint.compute(fingerprint, (key, current) -> {
+            if (current == null) {
+                acquired[0] = new SharedImageContent(fingerprint, content);
+                acquired[0].retain();
+                distinctBytes.add(size);
+                return acquired[0];
+            }
+
+            if (current.contentEquals(content)) {
+                current.retain();
+                deduplicatedCount.increment();
+                savedBytes.add(size);
+                acquired[0] = current;
+            } else {
+                collisionCount.increment();
+                acquired[0] = new SharedImageContent(fingerprint, content);
+                acquired[0].retain();
+            }
+            return current;
+        });
+
+        return acquired[0];
+    }
+
+    /**
+     * Освобождает ссылку на общий буфер. Буфер удаляется из хранилища после освобождения последней ссылки.
+     *
+     * @param sharedContent буфер, полученный из {@link #acquire(ByteBuffer)}
+     */
+    public void release(SharedImageContent sharedContent) {
+        contentsByFingerprint.compute(sharedContent.getFingerprint(), (key, current) -> {
+            int references = sharedContent.release();
+            if (references < 0) {
+                sharedContent.retain();
+                throw new IllegalStateException("Shared image content is already released: " + sharedContent);
+            }
+            if (current != sharedContent || references > 0) {
+                return current;
+            }
+            distinctBytes.add(-sharedContent.getSize());
+            return null;
+        });
+    }
+
+    /**
+     * @return количество различных хранимых буферов
+     */
+    public int size() {
+        return contentsByFingerprint.size();
+    }
+
+    public DeduplicationStats stats() {
+        return new DeduplicationStats(contentsByFingerprint.size(), distinctBytes.sum(),
+                deduplicatedCount.sum(), savedBytes.sum(), collisionCount.sum());
+    }
+}
@@ -2,13 +2,20 @@ package ru.zahaand.patterns.flyweight;
 
 import org.springframework.stereotype.Component;
 import ru.zahaand.patterns.enums.ImageFormat;
+import ru.zahaand.patterns.enums.ImageLoadMode;
+import ru.zahaand.patterns.flyweight.cache.CacheStats;
+import ru.zahaand.patterns.flyweight.cache.TinyLfuCache;
 import ru.zahaand.patterns.model.Image;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.StandardOpenOption;
 
 /**
  * <h1>Паттерн Flyweight. Легковес</h1>
@@ -41,19 +48,116 @@ import java.util.Map;
  * <p>
  * При попытке получить доступ к одному и тому же изображению по пути "/path/to/image1.jpg",
  * возвращается один и тот же объект из кэша, что демонстрирует принцип повторного использования объектов в паттерне Flyweight.
+ *
+ * <p>Кэш потокобезопасен и ограничен суммарным размером содержимого изображений в байтах, а не количеством записей.
+ * При переполнении изображения вытесняются по политике W-TinyLFU с учетом частоты обращений ({@link TinyLfuCache}).
+ * Одновременные запросы одного и того же пути читают файл один раз.
+ *
+ * <p>В режиме {@link ImageLoadMode#MAPPED} файл не читается в кучу, а отображается в память только для чтения:
+ * содержимое изображения доступно через {@link Image#asByteBuffer()} без копирования, а страницы файла
+ * загружаются операционной системой по мере обращения. Ограничение кэша в этом режиме распространяется
+ * на суммарный размер отображенных файлов.
+ *
+ * <p>Содержимое изображений адресуется отпечатком ({@link ImageContentStore}): одинаковые файлы, доступные
+ * по разным путям, разделяют один буфер. Каждое изображение в кэше владеет одной ссылкой на свой буфер и освобождает
+ * ее при вытеснении. Изображения, созданные вне кэша, например для {@code ImageContent}, можно перевести
+ * на общие буферы через {@link #deduplicate(Image)} и освободить через {@link #release(Image)}.
+ * Ограничение кэша учитывает размер каждого изображения отдельно, поэтому при наличии дубликатов
+ * фактический объем памяти оказывается меньше заданного предела.
  */
 @Component
 public class ImageFlyweight {
-    private final Map<String, Image> imagesByPath = new HashMap<>();
+
+    public static final long DEFAULT_MAXIMUM_BYTES = 256L * 1024 * 1024;
+
+    private final TinyLfuCache<String, Image> imagesByPath;
+    private final ImageLoadMode loadMode;
+    private final ImageContentStore imageContentStore = new ImageContentStore();
+
+    public ImageFlyweight() {
+        this(DEFAULT_MAXIMUM_BYTES, ImageLoadMode.HEAP);
+    }
+
+    /**
+     * @param maximumBytes максимальный суммарный размер содержимого изображений в кэше
+     * @param loadMode     способ загрузки содержимого изображений
+     */
+    public ImageFlyweight(long maximumBytes, ImageLoadMode loadMode) {
+        this.imagesByPath = new TinyLfuCache<>(maximumBytes, Image::getSize, (path, image) -> release(image));
+        this.loadMode = loadMode;
+    }
 
     public Image getImage(String path) throws IOException {
+        try {
+            return imagesByPath.get(path, this::loadImage);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        if (!imagesByPath.containsKey(path)) {
-            byte[] content = Files.readAllBytes(Paths.get(path));
-            Image image = new Image(ImageFormat.JPEG, content, path);
-            imagesByPath.put(path, image);
+    /**
+     * Возвращает изображение с тем же форматом и путем, содержимое которого хранится в общем буфере.
+     * Вызывающий код владеет ссылкой на буфер и должен освободить ее через {@link #release(Image)}.
+     *
+     * <h3>Пример использования:</h3>
+     * <pre>
+     *     ImageContent imageContent = new ImageContent(imageFlyweight.deduplicate(image), user);
+     * </pre>
+     *
+     * @param image изображение с содержимым в куче или в буфере
+     * @return изображение, использующее общий буфер
+     */
+    public Image deduplicate(Image image) {
+        ByteBuffer content = image.asByteBuffer();
+        if (content == null) {
+            throw new IllegalArgumentException("Image has no content");
         }
+        return Image.share(image.getFormat(), imageContentStore.acquire(content, image.getFingerprint()),
+                image.getPath());
+    }
 
-        return imagesByPath.get(path);
+    /**
+     * Освобождает ссылку изображения на общий буфер. Для изображений без общего буфера ничего не делает.
+     */
+    public void release(Image image) {
+        if (image.getSharedContent() != null) {
+            imageContentStore.release(image.getSharedContent());
+        }
+    }
+
+    /**
+     * @return статистика попаданий, промахов и вытеснений кэша изображений
+     */
+    public CacheStats getStats() {
+        return imagesByPath.stats();
+    }
+
+    /**
+     * @return статистика разделения одинакового содержимого изображений
+     */
+    public DeduplicationStats getDeduplicationStats() {
+        return imageContentStore.stats();
+    }
+
+    private Image loadImage(String path) {
+        try {
+            ByteBuffer content = switch (loadMode) {
+                case HEAP -> ByteBuffer.wrap(Files.readAllBytes(Paths.get(path)));
+                case MAPPED -> map(Paths.get(path));
+            };
+            return Image.share(ImageFormat.JPEG, imageContentStore.acquire(content), path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Image is too large to be mapped: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
     }
 }
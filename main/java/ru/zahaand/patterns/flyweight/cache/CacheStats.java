@@ -0,0 +1,21 @@
+package ru.zahaand.patterns.flyweight.cache;
+
+/**
+ * Снимок статистики {@link TinyLfuCache}.
+ *
+ * @param hitCount       количество обращений, обслуженных из кэша
+ * @param missCount      количество обращений, потребовавших загрузки или ожидания загрузки
+ * @param loadCount      количество фактических загрузок значений
+ * @param evictionCount  количество вытесненных записей
+ * @param evictionWeight суммарный вес вытесненных записей
+ */
+public record CacheStats(long hitCount, long missCount, long loadCount, long evictionCount, long evictionWeight) {
+
+    /**
+     * @return доля обращений, обслуженных из кэша, или {@code 1.0}, если обращений не было
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.zahaand.patterns.flyweight.cache;
+
+/**
+ * Вероятностная оценка частоты обращений к ключам (Count-Min Sketch) для политики допуска TinyLFU.
+ *
+ * <p>Счетчики четырехбитные и упакованы по шестнадцать в {@code long}. Каждый ключ отображается на четыре счетчика,
+ * оценкой частоты служит минимальный из них. После {@code 10 * capacity} увеличений все счетчики делятся пополам,
+ * поэтому устаревшая популярность со временем затухает.
+ *
+ * <p>Класс не потокобезопасен: все вызовы выполняются под блокировкой {@link TinyLfuCache}.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNTER = 15;
+
+    private long[] table;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch() {
+        ensureCapacity(64);
+    }
+
+    /**
+     * Увеличивает размер таблицы под ожидаемое количество ключей. История частот при этом сбрасывается.
+     */
+    void ensureCapacity(long expectedSize) {
+        int capacity = (int) Math.min(expectedSize, 1 << 30);
+        int tableLength = Integer.highestOneBit(Math.max(capacity, 64) - 1) << 1;
+        if (table != null && tableLength <= table.length) {
+            return;
+        }
+
+        table = new long[tableLength];
+        sampleSize = 10 * tableLength;
+        additions = 0;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNTER;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int counterIndex = counterIndex(hash, i);
+            int count = (int) ((table[counterIndex >>> 4] >>> ((counterIndex & 15) << 2)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(counterIndex(hash, i));
+        }
+
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int counterIndex) {
+        int tableIndex = counterIndex >>> 4;
+        int offset = (counterIndex & 15) << 2;
+        long mask = 0xFL << offset;
+        if ((table[tableIndex] & mask) != mask) {
+            table[tableIndex] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int counterIndex(int hash, int seedIndex) {
+        long h = (hash + SEEDS[seedIndex]) * SEEDS[seedIndex];
+        h += h >>> 32;
+        return (int) h & ((table.length << 4) - 1);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
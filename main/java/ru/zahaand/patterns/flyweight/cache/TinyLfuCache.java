@@ -0,0 +1,386 @@
+package ru.zahaand.patterns.flyweight.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Класс {@code TinyLfuCache} представляет собой потокобезопасный кэш, ограниченный суммарным весом значений,
+ * с вытеснением по политике W-TinyLFU.
+ *
+ * <p>Записи распределены по трем очередям LRU:
+ * <ul>
+ *     <li><strong>Окно (window)</strong>: около 1% веса. Все новые записи попадают сюда,
+ *     что позволяет кэшу переживать короткие всплески обращений к новым ключам.</li>
+ *     <li><strong>Испытательная очередь (probation)</strong>: записи, вытесненные из окна.
+ *     Запись, вытесненная из окна, допускается в основную область только если частота обращений к ней,
+ *     оцененная {@link FrequencySketch}, выше частоты жертвы из головы испытательной очереди.</li>
+ *     <li><strong>Защищенная очередь (protected)</strong>: около 80% основной области. Сюда переходят записи
+ *     испытательной очереди при повторном обращении.</li>
+ * </ul>
+ *
+ * <p>Чтение выполняется без блокировок через {@link ConcurrentHashMap}. Учет обращения в политике вытеснения
+ * выполняется только если блокировка свободна, иначе пропускается: под высокой конкуренцией это немного снижает
+ * точность оценки частот, но не останавливает читающие потоки. Одновременные промахи по одному ключу объединяются:
+ * значение загружается один раз, остальные потоки ожидают результат той же загрузки.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     TinyLfuCache&lt;String, Image&gt; cache = new TinyLfuCache&lt;&gt;(256 * 1024 * 1024, Image::getSize);
+ *     Image image = cache.get("/path/to/image1.jpg", this::loadImage);
+ * </pre>
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final long maximumWeight;
+    private final long maximumWindowWeight;
+    private final long maximumProtectedWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final BiConsumer<? super K, ? super V> removalListener;
+
+    private final ConcurrentMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, CompletableFuture<V>> loadsInFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+
+    public TinyLfuCache(long maximumWeight, ToLongFunction<? super V> weigher) {
+        this(maximumWeight, weigher, (key, value) -> {
+        });
+    }
+
+    /**
+     * @param maximumWeight   максимальный суммарный вес значений
+     * @param weigher         функция вычисления веса значения
+     * @param removalListener вызывается вне блокировки для каждой вытесненной, удаленной, замененной
+     *                        или не сохраненной из-за веса записи
+     */
+    public TinyLfuCache(long maximumWeight, ToLongFunction<? super V> weigher,
+                        BiConsumer<? super K, ? super V> removalListener) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.maximumWindowWeight = Math.max(1, (long) (maximumWeight * WINDOW_RATIO));
+        this.maximumProtectedWeight = (long) ((maximumWeight - maximumWindowWeight) * PROTECTED_RATIO);
+        this.weigher = weigher;
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его. Конкурентные промахи по одному ключу
+     * выполняют загрузку один раз.
+     *
+     * @param key    ключ
+     * @param loader функция загрузки значения при промахе
+     * @return значение, соответствующее ключу
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            hitCount.increment();
+            afterRead(node);
+            return node.value;
+        }
+
+        missCount.increment();
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> loadInFlight = loadsInFlight.putIfAbsent(key, load);
+        if (loadInFlight != null) {
+            return await(loadInFlight);
+        }
+
+        try {
+            node = data.get(key);
+            V value;
+            if (node != null) {
+                value = node.value;
+            } else {
+                loadCount.increment();
+                value = loader.apply(key);
+                put(key, value);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * @return значение из кэша или {@code null}, если ключ отсутствует
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        afterRead(node);
+        return node.value;
+    }
+
+    /**
+     * Добавляет или заменяет значение. Значение, вес которого превышает максимальный вес кэша, не сохраняется,
+     * и для него сразу вызывается слушатель удаления.
+     */
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        List<Node<K, V>> removed = new ArrayList<>();
+
+        evictionLock.lock();
+        try {
+            sketch.increment(key);
+            Node<K, V> node = new Node<>(key, value, weight);
+            if (weight > maximumWeight) {
+                removed.add(node);
+                return;
+            }
+
+            Node<K, V> previous = data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+                removed.add(previous);
+            }
+
+            sketch.ensureCapacity(data.size());
+            window.addLast(node);
+            evict(removed);
+        } finally {
+            evictionLock.unlock();
+            notifyRemoved(removed);
+        }
+    }
+
+    /**
+     * Удаляет значение из кэша.
+     */
+    public void invalidate(K key) {
+        Node<K, V> node;
+        evictionLock.lock();
+        try {
+            node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (node != null) {
+            removalListener.accept(node.key, node.value);
+        }
+    }
+
+    /**
+     * @return суммарный вес значений в кэше
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return window.weight + probation.weight + protectedQueue.weight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return количество записей в кэше
+     */
+    public int size() {
+        return data.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadCount.sum(),
+                evictionCount.sum(), evictionWeight.sum());
+    }
+
+    private void afterRead(Node<K, V> node) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            sketch.increment(node.key);
+            if (node.queue == null) {
+                return;
+            }
+
+            if (node.queue == probation) {
+                probation.remove(node);
+                protectedQueue.addLast(node);
+                demoteProtectedOverflow();
+            } else {
+                node.queue.moveToLast(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedQueue.weight > maximumProtectedWeight) {
+            Node<K, V> demoted = protectedQueue.first();
+            protectedQueue.remove(demoted);
+            probation.addLast(demoted);
+        }
+    }
+
+    private void evict(List<Node<K, V>> removed) {
+        int candidates = 0;
+        while (window.weight > maximumWindowWeight) {
+            Node<K, V> node = window.first();
+            window.remove(node);
+            probation.addLast(node);
+            candidates++;
+        }
+
+        while (window.weight + probation.weight + protectedQueue.weight > maximumWeight) {
+            Node<K, V> victim = probation.first();
+            if (victim == null) {
+                victim = protectedQueue.first() != null ? protectedQueue.first() : window.first();
+            }
+
+            Node<K, V> candidate = candidates > 0 ? probation.last() : null;
+            if (candidate != null && candidate != victim
+                    && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                victim = candidate;
+            }
+            if (victim == candidate) {
+                candidates--;
+            }
+
+            unlink(victim);
+            data.remove(victim.key, victim);
+            evictionCount.increment();
+            evictionWeight.add(victim.weight);
+            removed.add(victim);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.queue != null) {
+            node.queue.remove(node);
+        }
+    }
+
+    private void notifyRemoved(List<Node<K, V>> removed) {
+        for (Node<K, V> node : removed) {
+            removalListener.accept(node.key, node.value);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long weight;
+
+        private AccessOrderDeque<K, V> queue;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Двусвязная очередь в порядке обращений: голова — давно не использованная запись, хвост — последняя.
+     */
+    private static final class AccessOrderDeque<K, V> {
+
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        private long weight;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        Node<K, V> last() {
+            return tail;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.queue = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            node.queue = null;
+            weight -= node.weight;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
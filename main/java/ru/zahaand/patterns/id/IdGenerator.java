@@ -0,0 +1,18 @@
+package ru.zahaand.patterns.id;
+
+import java.util.UUID;
+
+/**
+ * Интерфейс {@code IdGenerator} определяет способ генерации идентификаторов сущностей.
+ * Реализации должны быть потокобезопасными.
+ *
+ * @see IdGenerators
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * @return новый уникальный идентификатор
+     */
+    UUID nextId();
+}
@@ -0,0 +1,47 @@
+package ru.zahaand.patterns.id;
+
+import ru.zahaand.patterns.id.impl.RandomIdGenerator;
+import ru.zahaand.patterns.id.impl.TimeOrderedIdGenerator;
+
+import java.util.UUID;
+
+/**
+ * Класс {@code IdGenerators} хранит генератор идентификаторов, которым пользуются сущности при создании.
+ *
+ * <p>По умолчанию используется {@link TimeOrderedIdGenerator}. Для случайных идентификаторов
+ * можно установить {@link RandomIdGenerator}.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     IdGenerators.set(new RandomIdGenerator());
+ *     UUID id = IdGenerators.nextId();
+ * </pre>
+ */
+public final class IdGenerators {
+
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator();
+
+    private IdGenerators() {
+    }
+
+    /**
+     * @return новый идентификатор, созданный текущим генератором
+     */
+    public static UUID nextId() {
+        return generator.nextId();
+    }
+
+    public static IdGenerator get() {
+        return generator;
+    }
+
+    /**
+     * Устанавливает генератор идентификаторов для всех сущностей, создаваемых после вызова.
+     */
+    public static void set(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("Id generator must not be null");
+        }
+        IdGenerators.generator = generator;
+    }
+}
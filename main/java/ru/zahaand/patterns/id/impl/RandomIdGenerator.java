@@ -0,0 +1,20 @@
+package ru.zahaand.patterns.id.impl;
+
+import ru.zahaand.patterns.id.IdGenerator;
+
+import java.util.UUID;
+
+/**
+ * Генератор случайных идентификаторов UUID версии 4 на основе {@link UUID#randomUUID()}.
+ *
+ * <p>Идентификаторы непредсказуемы, но не упорядочены, а все потоки получают случайные числа из одного
+ * криптографически стойкого генератора. Следует использовать, только если идентификаторы не должны раскрывать
+ * время создания.
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public UUID nextId() {
+        return UUID.randomUUID();
+    }
+}
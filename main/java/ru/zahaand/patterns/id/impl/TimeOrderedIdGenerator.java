@@ -0,0 +1,72 @@
+package ru.zahaand.patterns.id.impl;
+
+import ru.zahaand.patterns.id.IdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Генератор упорядоченных по времени идентификаторов UUID версии 7 (RFC 9562).
+ *
+ * <p>Старшие 48 бит идентификатора — время создания в миллисекундах, следующие 12 бит — счетчик внутри
+ * миллисекунды, остальные 62 бита — случайные. Время и счетчик хранятся в одном {@link AtomicLong}
+ * и увеличиваются без блокировок, поэтому идентификаторы строго возрастают и в одном, и в разных потоках,
+ * в том числе при переводе часов назад. При переполнении счетчика время идентификаторов забегает вперед
+ * на миллисекунду. Случайная часть берется из {@link ThreadLocalRandom}, поэтому потоки не конкурируют
+ * за общий генератор случайных чисел.
+ *
+ * <p>Так как идентификаторы возрастают, новые записи добавляются в конец упорядоченных индексов,
+ * а {@link UUID#compareTo(UUID)} упорядочивает их по времени создания.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     IdGenerator generator = new TimeOrderedIdGenerator();
+ *     UUID id = generator.nextId();
+ * </pre>
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 7L << 12;
+    private static final long VARIANT = 1L << 63;
+    private static final long RANDOM_MASK = (1L << 62) - 1;
+
+    /**
+     * Время в миллисекундах, сдвинутое на {@link #COUNTER_BITS}, и счетчик в младших битах.
+     */
+    private final AtomicLong state = new AtomicLong();
+    private final LongSupplier currentTimeMillis;
+
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param currentTimeMillis источник текущего времени в миллисекундах
+     */
+    public TimeOrderedIdGenerator(LongSupplier currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public UUID nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = currentTimeMillis.getAsLong() << COUNTER_BITS;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            // В новой миллисекунде счетчик начинается со случайного значения в младшей половине диапазона,
+            // чтобы идентификаторы было сложнее угадать и счетчику оставался запас
+            next = now > current ? now | random.nextInt(1 << (COUNTER_BITS - 1)) : current + 1;
+        } while (!state.compareAndSet(current, next));
+
+        long timestamp = next >>> COUNTER_BITS;
+        long counter = next & ((1L << COUNTER_BITS) - 1);
+        long mostSigBits = timestamp << 16 | VERSION | counter;
+        long leastSigBits = VARIANT | random.nextLong() & RANDOM_MASK;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
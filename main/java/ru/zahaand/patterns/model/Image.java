@@ -1,11 +1,15 @@
 package ru.zahaand.patterns.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import ru.zahaand.patterns.enums.ImageFormat;
 import ru.zahaand.patterns.flyweight.ImageFlyweight;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
 /**
  * Класс {@code Image} представляет собой структуру данных для хранения информации об изображении.
  * Он содержит формат изображения, его содержимое в виде массива байтов и путь к файлу изображения.
@@ -13,14 +17,231 @@ import ru.zahaand.patterns.flyweight.ImageFlyweight;
  * <li>Служит для демонстрации паттерна Flyweight, позволяя разделить состояние объекта на внутреннее состояние
  * (неизменяемое и уникальное для каждого объекта) и внешнее состояние (может изменяться и быть общим для группы объектов).
  *
+ * <p>Содержимое может храниться не в куче, а в буфере только для чтения, например в файле, отображенном в память
+ * ({@link #wrap(ImageFormat, ByteBuffer, String)}). Такое изображение почти не занимает места в куче.
+ * Для чтения содержимого без копирования следует использовать {@link #asByteBuffer()}:
+ * {@link #getContent()} для такого изображения каждый раз создает копию в куче.
+ *
+ * <p>Изображение, созданное через {@link #share(ImageFormat, SharedImageContent, String)}, использует общий
+ * буфер, адресуемый отпечатком содержимого: одинаковое содержимое под разными путями хранится один раз.
+ *
+ * <p>Равенство и хеш-код определяются форматом, путем, размером и 64-битным отпечатком содержимого
+ * ({@link ImageFingerprint}), а не побайтным сравнением. Отпечаток вычисляется один раз и кэшируется,
+ * для изображений с общим буфером он уже известен. Поэтому содержимое массива, переданного в изображение,
+ * не должно изменяться на месте: для замены содержимого следует использовать {@link #setContent(byte[])}.
+ * {@link #toString()} выводит только краткое описание без содержимого.
+ *
+ * <p>Копия, созданная через {@link #copy()}, разделяет содержимое с оригиналом до первого обращения к массиву:
+ * {@link #getContent()} и {@link #getContentForUpdate()} сначала копируют разделяемое содержимое, а чтение через
+ * {@link #asByteBuffer()} выполняется без копирования. Для изменения содержимого на месте следует получать массив
+ * через {@link #getContentForUpdate()}, который также сбрасывает кэшированный отпечаток.
+ *
  * @see ImageFlyweight
  */
-@Data
-@AllArgsConstructor
+@Getter
+@Setter
 @NoArgsConstructor
 public class Image {
 
     private ImageFormat format;
     private byte[] content;
     private String path;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ByteBuffer contentBuffer;
+
+    @Setter(AccessLevel.NONE)
+    private SharedImageContent sharedContent;
+
+    /**
+     * Кэшированный отпечаток содержимого; {@code 0} означает, что отпечаток еще не вычислен.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long fingerprint;
+
+    /**
+     * Признак того, что массив содержимого может разделяться с копией изображения.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile boolean contentShared;
+
+    public Image(ImageFormat format, byte[] content, String path) {
+        this.format = format;
+        this.content = content;
+        this.path = path;
+    }
+
+    /**
+     * Создает изображение, содержимое которого хранится в переданном буфере без копирования.
+     *
+     * @param format        формат изображения
+     * @param contentBuffer буфер с содержимым от текущей позиции до границы
+     * @param path          путь к файлу изображения
+     * @return изображение, использующее представление буфера только для чтения
+     */
+    public static Image wrap(ImageFormat format, ByteBuffer contentBuffer, String path) {
+        Image image = new Image(format, null, path);
+        image.contentBuffer = contentBuffer.slice().asReadOnlyBuffer();
+        return image;
+    }
+
+    /**
+     * Создает изображение, использующее общий буфер содержимого. Созданное изображение владеет одной ссылкой
+     * на буфер, которую ранее получил вызывающий код.
+     *
+     * @param format        формат изображения
+     * @param sharedContent общий буфер содержимого
+     * @param path          путь к файлу изображения
+     * @return изображение, использующее общий буфер без копирования
+     */
+    public static Image share(ImageFormat format, SharedImageContent sharedContent, String path) {
+        Image image = wrap(format, sharedContent.getContent(), path);
+        image.sharedContent = sharedContent;
+        image.fingerprint = sharedContent.getFingerprint();
+        return image;
+    }
+
+    /**
+     * Возвращает содержимое изображения в виде массива байтов.
+     *
+     * <p>Для изображения, содержимое которого хранится в буфере, в том числе для любого изображения, полученного
+     * из {@link ImageFlyweight}, каждый вызов копирует все содержимое в новый массив: время и выделяемая память
+     * пропорциональны размеру изображения. Копия не кэшируется, чтобы изображение из общего кэша не занимало
+     * в куче второй экземпляр содержимого. Для чтения без копирования следует использовать {@link #asByteBuffer()},
+     * для получения размера — {@link #getSize()}.
+     *
+     * <p>Если массив разделяется с копией изображения ({@link #copy()}), сначала создается собственная копия,
+     * как в {@link #getContentForUpdate()}, поэтому запись в возвращенный массив не изменяет другие изображения.
+     */
+    public byte[] getContent() {
+        if (contentShared) {
+            return getContentForUpdate();
+        }
+        if (content == null && contentBuffer != null) {
+            return copyOf(contentBuffer);
+        }
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+        this.contentBuffer = null;
+        this.fingerprint = 0;
+        this.contentShared = false;
+    }
+
+    /**
+     * Возвращает массив содержимого, который можно изменять на месте. Если содержимое разделяется с копией
+     * изображения или хранится в буфере, сначала создается собственная копия содержимого в куче.
+     * Кэшированный отпечаток сбрасывается, так как вызывающий код собирается изменить содержимое.
+     * Ссылка на общий буфер {@link #getSharedContent()}, если она есть, остается за изображением до освобождения.
+     *
+     * @return изменяемый массив содержимого или {@code null}, если содержимое не задано
+     */
+    public synchronized byte[] getContentForUpdate() {
+        if (contentShared || (content == null && contentBuffer != null)) {
+            content = content != null ? content.clone() : copyOf(contentBuffer);
+            contentBuffer = null;
+            contentShared = false;
+        }
+        fingerprint = 0;
+        return content;
+    }
+
+    /**
+     * Создает копию изображения, которая разделяет содержимое с оригиналом без копирования.
+     * Содержимое копируется только при получении массива через {@link #getContent()} или
+     * {@link #getContentForUpdate()} в оригинале или копии.
+     * Копия не владеет ссылкой на общий буфер оригинала, поэтому ее не нужно освобождать.
+     *
+     * @return копия изображения
+     */
+    public synchronized Image copy() {
+        Image copy = new Image(format, content, path);
+        copy.contentBuffer = contentBuffer;
+        copy.fingerprint = fingerprint;
+        if (content != null) {
+            contentShared = true;
+            copy.contentShared = true;
+        }
+        return copy;
+    }
+
+    /**
+     * Возвращает представление содержимого только для чтения без копирования.
+     *
+     * @return буфер с содержимым или {@code null}, если содержимое не задано
+     */
+    public ByteBuffer asByteBuffer() {
+        if (contentBuffer != null) {
+            return contentBuffer.duplicate();
+        }
+        return content == null ? null : ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return размер содержимого изображения в байтах
+     */
+    public int getSize() {
+        if (contentBuffer != null) {
+            return contentBuffer.remaining();
+        }
+        return content == null ? 0 : content.length;
+    }
+
+    /**
+     * Возвращает отпечаток содержимого. При первом вызове отпечаток вычисляется за время, пропорциональное
+     * размеру содержимого, последующие вызовы выполняются за постоянное время.
+     *
+     * @return 64-битный отпечаток содержимого
+     */
+    public long getFingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            ByteBuffer buffer = asByteBuffer();
+            result = buffer == null ? 0 : ImageFingerprint.of(buffer);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Image other)) {
+            return false;
+        }
+        return format == other.format
+                && Objects.equals(path, other.path)
+                && getSize() == other.getSize()
+                && (hasContent() == other.hasContent())
+                && getFingerprint() == other.getFingerprint();
+    }
+
+    @Override
+    public int hashCode() {
+        long contentHash = getFingerprint();
+        int result = Objects.hash(format, path, getSize());
+        return 31 * result + (int) (contentHash ^ (contentHash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "Image(format=" + format + ", path=" + path + ", size=" + getSize() + ")";
+    }
+
+    private static byte[] copyOf(ByteBuffer buffer) {
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return copy;
+    }
+
+    private boolean hasContent() {
+        return content != null || contentBuffer != null;
+    }
 }
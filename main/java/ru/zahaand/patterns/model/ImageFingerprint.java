@@ -0,0 +1,103 @@
+package ru.zahaand.patterns.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Класс {@code ImageFingerprint} вычисляет 64-битный отпечаток содержимого изображения по алгоритму XXH64.
+ *
+ * <p>Алгоритм обрабатывает данные блоками по 32 байта в четырех независимых аккумуляторах и работает
+ * со скоростью, близкой к скорости чтения памяти. Отпечаток не является криптографическим хешем
+ * и предназначен для быстрого сравнения и адресации содержимого.
+ */
+public final class ImageFingerprint {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private ImageFingerprint() {
+    }
+
+    /**
+     * Вычисляет отпечаток содержимого буфера от текущей позиции до границы, не изменяя позицию буфера.
+     *
+     * @param content буфер с содержимым
+     * @return 64-битный отпечаток
+     */
+    public static long of(ByteBuffer content) {
+        ByteBuffer buffer = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        int end = buffer.limit();
+        int length = end - position;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = PRIME_1 + PRIME_2;
+            long v2 = PRIME_2;
+            long v3 = 0;
+            long v4 = -PRIME_1;
+            int limit = end - 32;
+            do {
+                v1 = round(v1, buffer.getLong(position));
+                v2 = round(v2, buffer.getLong(position + 8));
+                v3 = round(v3, buffer.getLong(position + 16));
+                v4 = round(v4, buffer.getLong(position + 24));
+                position += 32;
+            } while (position <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+
+        hash += length;
+
+        while (position + 8 <= end) {
+            hash ^= round(0, buffer.getLong(position));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+            position += 8;
+        }
+        if (position + 4 <= end) {
+            hash ^= (buffer.getInt(position) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            position += 4;
+        }
+        while (position < end) {
+            hash ^= (buffer.get(position) & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+            position++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    /**
+     * @see #of(ByteBuffer)
+     */
+    public static long of(byte[] content) {
+        return of(ByteBuffer.wrap(content));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        hash ^= round(0, accumulator);
+        return hash * PRIME_1 + PRIME_4;
+    }
+}
@@ -0,0 +1,306 @@
+package ru.zahaand.patterns.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Класс {@code Rope} представляет собой неизменяемую строку в виде сбалансированного дерева фрагментов.
+ *
+ * <p>Листья дерева хранят фрагменты текста длиной не более {@link #LEAF_SIZE} символов, внутренние узлы —
+ * длину и высоту поддерева. Дерево балансируется как AVL-дерево, поэтому вставка, удаление, выделение подстроки
+ * и доступ к символу выполняются за O(log n) и копируют только затронутые листья, а не весь текст.
+ * Результат изменения — новая строка, которая разделяет с исходной все незатронутые поддеревья.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     Rope document = Rope.of(largeText);
+ *     Rope edited = document.insert(1_000_000, "new paragraph").delete(10, 20);
+ *     String text = edited.toString();
+ * </pre>
+ */
+public final class Rope implements CharSequence {
+
+    public static final int LEAF_SIZE = 1024;
+
+    private static final Rope EMPTY = new Rope(new Leaf(""));
+
+    private final Node root;
+
+    private Rope(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Создает строку из последовательности символов, копируя ее один раз.
+     */
+    public static Rope of(CharSequence text) {
+        if (text instanceof Rope rope) {
+            return rope;
+        }
+        if (text.isEmpty()) {
+            return EMPTY;
+        }
+        return new Rope(build(text, 0, text.length()));
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkIndex(index, length());
+        Node node = root;
+        while (node instanceof Concat concat) {
+            if (index < concat.left.length) {
+                node = concat.left;
+            } else {
+                index -= concat.left.length;
+                node = concat.right;
+            }
+        }
+        return ((Leaf) node).text.charAt(index);
+    }
+
+    @Override
+    public Rope subSequence(int start, int end) {
+        checkRange(start, end, length());
+        if (start == 0 && end == length()) {
+            return this;
+        }
+        Node[] tail = split(root, start);
+        return wrap(split(tail[1], end - start)[0]);
+    }
+
+    /**
+     * @return новая строка с текстом, вставленным в позицию {@code index}
+     */
+    public Rope insert(int index, CharSequence text) {
+        return replace(index, index, text);
+    }
+
+    /**
+     * @return новая строка без символов в диапазоне [{@code start}, {@code end})
+     */
+    public Rope delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    /**
+     * @return новая строка с текстом в конце
+     */
+    public Rope append(CharSequence text) {
+        return replace(length(), length(), text);
+    }
+
+    /**
+     * Заменяет символы в диапазоне [{@code start}, {@code end}) текстом.
+     *
+     * @return новая строка
+     */
+    public Rope replace(int start, int end, CharSequence text) {
+        checkRange(start, end, length());
+        Node[] head = split(root, start);
+        Node[] tail = split(head[1], end - start);
+        Node middle = text instanceof Rope rope ? rope.root : text.isEmpty() ? null : build(text, 0, text.length());
+        return wrap(join(join(head[0], middle), tail[1]));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(length());
+        appendTo(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Добавляет текст строки в построитель без создания промежуточной строки.
+     */
+    public void appendTo(StringBuilder builder) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node instanceof Concat concat) {
+                stack.push(concat.right);
+                stack.push(concat.left);
+            } else {
+                builder.append(((Leaf) node).text);
+            }
+        }
+    }
+
+    /**
+     * @return фрагменты текста по порядку без копирования
+     */
+    public List<String> chunks() {
+        List<String> chunks = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node instanceof Concat concat) {
+                stack.push(concat.right);
+                stack.push(concat.left);
+            } else if (node.length > 0) {
+                chunks.add(((Leaf) node).text);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * @return высота дерева; для строки из n символов не превышает примерно 1.44 log2(n / LEAF_SIZE) + 1
+     */
+    int depth() {
+        return root.height;
+    }
+
+    private static Rope wrap(Node node) {
+        return node == null ? EMPTY : new Rope(node);
+    }
+
+    private static Node build(CharSequence text, int from, int to) {
+        if (to - from <= LEAF_SIZE) {
+            return new Leaf(text.subSequence(from, to).toString());
+        }
+        int leaves = (to - from + LEAF_SIZE - 1) / LEAF_SIZE;
+        int middle = from + (leaves / 2) * LEAF_SIZE;
+        return new Concat(build(text, from, middle), build(text, middle, to));
+    }
+
+    /**
+     * Делит дерево на части до позиции и начиная с нее. Пустая часть представляется {@code null}.
+     */
+    private static Node[] split(Node node, int index) {
+        if (node == null || index == 0) {
+            return new Node[]{null, node};
+        }
+        if (index == node.length) {
+            return new Node[]{node, null};
+        }
+        if (node instanceof Leaf leaf) {
+            return new Node[]{new Leaf(leaf.text.substring(0, index)), new Leaf(leaf.text.substring(index))};
+        }
+
+        Concat concat = (Concat) node;
+        if (index < concat.left.length) {
+            Node[] parts = split(concat.left, index);
+            return new Node[]{parts[0], join(parts[1], concat.right)};
+        }
+        Node[] parts = split(concat.right, index - concat.left.length);
+        return new Node[]{join(concat.left, parts[0]), parts[1]};
+    }
+
+    /**
+     * Соединяет два дерева, сохраняя баланс. Время пропорционально разности их высот.
+     */
+    private static Node join(Node left, Node right) {
+        if (left == null || left.length == 0) {
+            return right;
+        }
+        if (right == null || right.length == 0) {
+            return left;
+        }
+        if (left instanceof Leaf l && right instanceof Leaf r && l.length + r.length <= LEAF_SIZE) {
+            return new Leaf(l.text + r.text);
+        }
+        if (left.height > right.height + 1) {
+            return joinRight((Concat) left, right);
+        }
+        if (right.height > left.height + 1) {
+            return joinLeft(left, (Concat) right);
+        }
+        return new Concat(left, right);
+    }
+
+    private static Node joinRight(Concat left, Node right) {
+        Node inner = left.right;
+        if (inner.height <= right.height + 1) {
+            Node joined = join(inner, right);
+            if (joined.height <= left.left.height + 1) {
+                return new Concat(left.left, joined);
+            }
+            return rotateLeft(new Concat(left.left, rotateRight((Concat) joined)));
+        }
+        Node joined = joinRight((Concat) inner, right);
+        Concat result = new Concat(left.left, joined);
+        return joined.height <= left.left.height + 1 ? result : rotateLeft(result);
+    }
+
+    private static Node joinLeft(Node left, Concat right) {
+        Node inner = right.left;
+        if (inner.height <= left.height + 1) {
+            Node joined = join(left, inner);
+            if (joined.height <= right.right.height + 1) {
+                return new Concat(joined, right.right);
+            }
+            return rotateRight(new Concat(rotateLeft((Concat) joined), right.right));
+        }
+        Node joined = joinLeft(left, (Concat) inner);
+        Concat result = new Concat(joined, right.right);
+        return joined.height <= right.right.height + 1 ? result : rotateRight(result);
+    }
+
+    private static Node rotateLeft(Concat node) {
+        if (!(node.right instanceof Concat right)) {
+            return node;
+        }
+        return new Concat(new Concat(node.left, right.left), right.right);
+    }
+
+    private static Node rotateRight(Concat node) {
+        if (!(node.left instanceof Concat left)) {
+            return node;
+        }
+        return new Concat(left.left, new Concat(left.right, node.right));
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+    }
+
+    private static void checkRange(int start, int end, int length) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + length);
+        }
+    }
+
+    private abstract static sealed class Node permits Leaf, Concat {
+
+        final int length;
+        final int height;
+
+        Node(int length, int height) {
+            this.length = length;
+            this.height = height;
+        }
+    }
+
+    private static final class Leaf extends Node {
+
+        final String text;
+
+        Leaf(String text) {
+            super(text.length(), 0);
+            this.text = text;
+        }
+    }
+
+    private static final class Concat extends Node {
+
+        final Node left;
+        final Node right;
+
+        Concat(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
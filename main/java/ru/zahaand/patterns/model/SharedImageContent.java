@@ -0,0 +1,78 @@
+package ru.zahaand.patterns.model;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс {@code SharedImageContent} представляет собой общий буфер содержимого изображения,
+ * адресуемый отпечатком содержимого ({@link ImageFingerprint}).
+ *
+ * <p>Одинаковое содержимое, загруженное по разным путям, хранится в одном буфере только для чтения.
+ * Каждое изображение, созданное через {@link Image#share(ru.zahaand.patterns.enums.ImageFormat, SharedImageContent, String)},
+ * владеет одной ссылкой на буфер; ссылки учитываются и освобождаются хранилищем
+ * {@link ru.zahaand.patterns.flyweight.ImageContentStore}.
+ */
+public final class SharedImageContent {
+
+    private final long fingerprint;
+    private final ByteBuffer content;
+    private final AtomicInteger references = new AtomicInteger();
+
+    public SharedImageContent(long fingerprint, ByteBuffer content) {
+        this.fingerprint = fingerprint;
+        this.content = content.slice().asReadOnlyBuffer();
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return представление общего буфера только для чтения
+     */
+    public ByteBuffer getContent() {
+        return content.duplicate();
+    }
+
+    public int getSize() {
+        return content.remaining();
+    }
+
+    /**
+     * @return текущее количество ссылок на буфер
+     */
+    public int getReferenceCount() {
+        return references.get();
+    }
+
+    /**
+     * @return {@code true}, если содержимое буфера совпадает с переданным побайтно
+     */
+    public boolean contentEquals(ByteBuffer other) {
+        return content.equals(other);
+    }
+
+    /**
+     * Увеличивает счетчик ссылок. Вызывается хранилищем содержимого.
+     *
+     * @return новое количество ссылок
+     */
+    public int retain() {
+        return references.incrementAndGet();
+    }
+
+    /**
+     * Уменьшает счетчик ссылок. Вызывается хранилищем содержимого.
+     *
+     * @return новое количество ссылок
+     */
+    public int release() {
+        return references.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedImageContent(fingerprint=" + Long.toHexString(fingerprint)
+                + ", size=" + getSize() + ", references=" + references.get() + ")";
+    }
+}
@@ -0,0 +1,141 @@
+package ru.zahaand.patterns.prototype;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.domain.User;
+import ru.zahaand.patterns.enums.ContentType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Класс {@code ContentPrototypeRegistry} хранит заранее подготовленные шаблоны контента и создает по ним
+ * новые экземпляры клонированием ({@link EntityPrototype}).
+ *
+ * <p>Шаблоны идентифицируются именем и типом контента. Новый экземпляр получает собственный идентификатор,
+ * а содержимое изображений разделяется с шаблоном до первой записи, поэтому создание контента по шаблону
+ * не копирует содержимое. Индивидуальные поля нового экземпляра задаются функцией изменения.
+ *
+ * <p>При регистрации сохраняется копия шаблона, поэтому последующие изменения переданного объекта
+ * не влияют на создаваемый контент. Реестр потокобезопасен.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     registry.register("greeting", new TextContent("Welcome!", systemUser));
+ *     TextContent content = registry.create("greeting", ContentType.TEXT, user);
+ *
+ *     ImageContent banner = registry.create("banner", ContentType.IMAGE, (ImageContent image) -&gt; {
+ *         byte[] pixels = image.getImage().getContentForUpdate();
+ *         pixels[0] = marker;
+ *     });
+ * </pre>
+ * <p>
+ * Массив, полученный через {@link ru.zahaand.patterns.model.Image#getContentForUpdate()}, принадлежит только новому
+ * экземпляру, поэтому его изменение не затрагивает шаблон и другие созданные по нему экземпляры.
+ */
+@Slf4j
+@Component
+public class ContentPrototypeRegistry {
+
+    private final ConcurrentMap<Key, Content> prototypes = new ConcurrentHashMap<>();
+
+    /**
+     * Регистрирует шаблон, заменяя ранее зарегистрированный шаблон с тем же именем и типом.
+     *
+     * @param name      имя шаблона
+     * @param prototype шаблон, тип контента которого задан
+     */
+    public void register(String name, Content prototype) {
+        ContentType contentType = prototype.getContentType();
+        if (name == null || contentType == null) {
+            throw new IllegalArgumentException("Template name and content type must not be null");
+        }
+        prototypes.put(new Key(name, contentType), prototype.clone());
+        log.debug("Content template registered: {} ({})", name, contentType);
+    }
+
+    public boolean unregister(String name, ContentType contentType) {
+        return prototypes.remove(new Key(name, contentType)) != null;
+    }
+
+    public boolean contains(String name, ContentType contentType) {
+        return prototypes.containsKey(new Key(name, contentType));
+    }
+
+    /**
+     * Создает контент по шаблону.
+     *
+     * @param name        имя шаблона
+     * @param contentType тип контента
+     * @return новый экземпляр контента
+     * @throws IllegalArgumentException если шаблон не зарегистрирован
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Content> T create(String name, ContentType contentType) {
+        return (T) prototype(name, contentType).clone();
+    }
+
+    /**
+     * Создает контент по шаблону и назначает ему пользователя.
+     */
+    public <T extends Content> T create(String name, ContentType contentType, User user) {
+        T content = create(name, contentType);
+        content.setUser(user);
+        return content;
+    }
+
+    /**
+     * Создает контент по шаблону и изменяет его поля.
+     *
+     * @param name        имя шаблона
+     * @param contentType тип контента
+     * @param patch       функция изменения полей нового экземпляра
+     * @return новый экземпляр контента
+     */
+    public <T extends Content> T create(String name, ContentType contentType, Consumer<? super T> patch) {
+        T content = create(name, contentType);
+        patch.accept(content);
+        return content;
+    }
+
+    /**
+     * Создает несколько экземпляров контента по одному шаблону. Шаблон ищется один раз.
+     *
+     * @param name        имя шаблона
+     * @param contentType тип контента
+     * @param count       количество экземпляров
+     * @param patch       функция изменения полей каждого нового экземпляра
+     * @return новые экземпляры контента
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Content> List<T> createAll(String name, ContentType contentType, int count,
+                                                 Consumer<? super T> patch) {
+        Content prototype = prototype(name, contentType);
+        List<T> contents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            T content = (T) prototype.clone();
+            patch.accept(content);
+            contents.add(content);
+        }
+        return contents;
+    }
+
+    public int size() {
+        return prototypes.size();
+    }
+
+    private Content prototype(String name, ContentType contentType) {
+        Content prototype = prototypes.get(new Key(name, contentType));
+        if (prototype == null) {
+            throw new IllegalArgumentException("Unknown content template: " + name + " (" + contentType + ")");
+        }
+        return prototype;
+    }
+
+    private record Key(String name, ContentType contentType) {
+    }
+}
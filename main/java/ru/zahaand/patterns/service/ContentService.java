@@ -2,6 +2,7 @@ package ru.zahaand.patterns.service;
 
 import ru.zahaand.patterns.domain.Content;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface ContentService {
@@ -10,6 +11,26 @@ public interface ContentService {
 
     Content read(UUID id);
 
+    /**
+     * Возвращает весь контент, принадлежащий пользователю с указанным идентификатором.
+     *
+     * @param userId идентификатор пользователя
+     * @return список контента пользователя или пустой список, если контента нет
+     */
+    List<Content> readByUser(UUID userId);
+
+    /**
+     * Возвращает страницу контента пользователя. Контент упорядочен по идентификатору, страница начинается
+     * с первого идентификатора, большего {@code afterId}, поэтому добавление и удаление контента между запросами
+     * не приводит к пропускам и повторам уже прочитанных элементов.
+     *
+     * @param userId  идентификатор пользователя
+     * @param afterId идентификатор последнего элемента предыдущей страницы или {@code null} для первой страницы
+     * @param limit   максимальный размер страницы
+     * @return страница контента; страница меньше {@code limit} означает, что контента больше нет
+     */
+    List<Content> readByUser(UUID userId, UUID afterId, int limit);
+
     Content update(Content content);
 
     boolean delete(UUID id);
@@ -0,0 +1,72 @@
+package ru.zahaand.patterns.service.impl;
+
+import ru.zahaand.patterns.domain.Content;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Чтение контента пользователя по упорядоченному индексу идентификаторов, общее для реализаций
+ * {@link ru.zahaand.patterns.service.ContentService}.
+ *
+ * <p>Идентификаторы, для которых хранилище уже не возвращает контент (удаленные между чтением индекса
+ * и чтением контента), пропускаются.
+ */
+final class ContentPages {
+
+    private ContentPages() {
+    }
+
+    /**
+     * @param contentIds идентификаторы контента пользователя или {@code null}, если контента нет
+     * @param reader     чтение контента по идентификатору
+     * @return весь найденный контент
+     */
+    static List<Content> readAll(NavigableSet<UUID> contentIds, Function<UUID, Content> reader) {
+        if (contentIds == null) {
+            return List.of();
+        }
+
+        List<Content> contents = new ArrayList<>(contentIds.size());
+        for (UUID contentId : contentIds) {
+            Content content = reader.apply(contentId);
+            if (content != null) {
+                contents.add(content);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * @param contentIds идентификаторы контента пользователя или {@code null}, если контента нет
+     * @param afterId    идентификатор последнего элемента предыдущей страницы или {@code null} для первой страницы
+     * @param limit      максимальный размер страницы
+     * @param reader     чтение контента по идентификатору
+     * @return страница контента
+     * @see ru.zahaand.patterns.service.ContentService#readByUser(UUID, UUID, int)
+     */
+    static List<Content> readPage(NavigableSet<UUID> contentIds, UUID afterId, int limit,
+                                  Function<UUID, Content> reader) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (contentIds == null) {
+            return List.of();
+        }
+
+        List<Content> contents = new ArrayList<>(Math.min(limit, 1024));
+        for (UUID contentId : afterId == null ? contentIds : contentIds.tailSet(afterId, false)) {
+            Content content = reader.apply(contentId);
+            if (content != null) {
+                contents.add(content);
+                if (contents.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,229 @@
+package ru.zahaand.patterns.service.impl;
+
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.domain.User;
+import ru.zahaand.patterns.domain.impl.ImageContent;
+import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.enums.ImageFormat;
+import ru.zahaand.patterns.model.Image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Класс {@code ContentRecordCodec} отвечает за компактное бинарное представление {@link TextContent}
+ * и {@link ImageContent} для хранения на диске.
+ *
+ * <p>Запись кодируется в две части: заголовок (тип, идентификатор, пользователь, метаданные) и полезную нагрузку
+ * (текст в UTF-8 или байты изображения). Части возвращаются отдельными буферами, поэтому байты изображения
+ * не копируются в промежуточный массив и записываются в хранилище напрямую.
+ *
+ * <p>При декодировании содержимое изображения не копируется: {@link Image} получает представление
+ * исходного буфера записи. Для записи в сегменте, отображенном в память, это означает чтение без копирования.
+ *
+ * <h3>Формат записи:</h3>
+ * <pre>
+ *     kind:byte | id:16 | user | [format:byte | path:string] | payloadLength:int | payload
+ *     user   = present:byte [ idPresent:byte [ id:16 ] | mobilePhone | email | name | age:int | country | city | address ]
+ *     string = length:int (-1 для null) | UTF-8 bytes
+ * </pre>
+ */
+public final class ContentRecordCodec {
+
+    private static final byte TEXT_KIND = 1;
+    private static final byte IMAGE_KIND = 2;
+    private static final int NULL_LENGTH = -1;
+
+    private ContentRecordCodec() {
+    }
+
+    /**
+     * Кодирует контент в бинарную запись.
+     *
+     * @param content контент для кодирования
+     * @return массив из двух буферов: заголовок и полезная нагрузка
+     */
+    public static ByteBuffer[] encode(Content content) {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(128);
+        ByteBuffer payload;
+
+        try (DataOutputStream header = new DataOutputStream(headerBytes)) {
+            if (content instanceof TextContent textContent) {
+                header.writeByte(TEXT_KIND);
+                writeHeader(header, content);
+                byte[] text = textContent.getUtf8();
+                payload = text == null ? null : ByteBuffer.wrap(text);
+
+            } else if (content instanceof ImageContent imageContent) {
+                header.writeByte(IMAGE_KIND);
+                writeHeader(header, content);
+                Image image = imageContent.getImage();
+                header.writeByte(image == null || image.getFormat() == null ? NULL_LENGTH : image.getFormat().ordinal());
+                writeString(header, image == null ? null : image.getPath());
+                payload = image == null ? null : image.asByteBuffer();
+
+            } else {
+                throw new IllegalArgumentException("Unsupported content: " + content.getClass().getName());
+            }
+
+            header.writeInt(payload == null ? NULL_LENGTH : payload.remaining());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new ByteBuffer[]{
+                ByteBuffer.wrap(headerBytes.toByteArray()),
+                payload == null ? ByteBuffer.allocate(0) : payload
+        };
+    }
+
+    /**
+     * Декодирует запись, начиная с текущей позиции буфера. Позиция буфера сдвигается на конец записи.
+     *
+     * @param record буфер с записью
+     * @return восстановленный контент
+     */
+    public static Content decode(ByteBuffer record) {
+        byte kind = record.get();
+        UUID id = readUuid(record);
+        User user = readUser(record);
+
+        return switch (kind) {
+            case TEXT_KIND -> {
+                TextContent textContent = new TextContent();
+                textContent.setContentType(ContentType.TEXT);
+                byte[] text = readBytes(record);
+                textContent.setContent(text == null ? null : new String(text, StandardCharsets.UTF_8));
+                yield withIdAndUser(textContent, id, user);
+            }
+            case IMAGE_KIND -> {
+                byte formatOrdinal = record.get();
+                ImageFormat format = formatOrdinal == NULL_LENGTH ? null : ImageFormat.values()[formatOrdinal];
+                String path = readString(record);
+                ImageContent imageContent = new ImageContent(readImage(record, format, path));
+                imageContent.setContentType(ContentType.IMAGE);
+                yield withIdAndUser(imageContent, id, user);
+            }
+            default -> throw new IllegalArgumentException("Unknown content record kind: " + kind);
+        };
+    }
+
+    /**
+     * Читает идентификатор контента из записи, не изменяя позицию буфера.
+     *
+     * @param record буфер с записью
+     * @return идентификатор контента
+     */
+    public static UUID readId(ByteBuffer record) {
+        int position = record.position();
+        return new UUID(record.getLong(position + 1), record.getLong(position + 1 + Long.BYTES));
+    }
+
+    /**
+     * Читает идентификатор пользователя из записи, не декодируя остальные поля и не изменяя позицию буфера.
+     *
+     * @param record буфер с записью
+     * @return идентификатор пользователя или {@code null}, если пользователь не указан
+     */
+    public static UUID readUserId(ByteBuffer record) {
+        int position = record.position() + 1 + 2 * Long.BYTES;
+        if (record.get(position) == 0 || record.get(position + 1) == 0) {
+            return null;
+        }
+        return new UUID(record.getLong(position + 2), record.getLong(position + 2 + Long.BYTES));
+    }
+
+    private static void writeHeader(DataOutputStream header, Content content) throws IOException {
+        writeUuid(header, content.getId());
+
+        User user = content.getUser();
+        header.writeBoolean(user != null);
+        if (user != null) {
+            header.writeBoolean(user.getId() != null);
+            if (user.getId() != null) {
+                writeUuid(header, user.getId());
+            }
+            writeString(header, user.getMobilePhone());
+            writeString(header, user.getEmail());
+            writeString(header, user.getName());
+            header.writeInt(user.getAge() == null ? Integer.MIN_VALUE : user.getAge());
+            writeString(header, user.getCountry());
+            writeString(header, user.getCity());
+            writeString(header, user.getAddress());
+        }
+    }
+
+    private static User readUser(ByteBuffer record) {
+        if (record.get() == 0) {
+            return null;
+        }
+
+        User user = new User();
+        user.setId(record.get() == 0 ? null : readUuid(record));
+        user.setMobilePhone(readString(record));
+        user.setEmail(readString(record));
+        user.setName(readString(record));
+        int age = record.getInt();
+        user.setAge(age == Integer.MIN_VALUE ? null : age);
+        user.setCountry(readString(record));
+        user.setCity(readString(record));
+        user.setAddress(readString(record));
+        return user;
+    }
+
+    private static Content withIdAndUser(Content content, UUID id, User user) {
+        content.setId(id);
+        content.setUser(user);
+        return content;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Image readImage(ByteBuffer in, ImageFormat format, String path) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return new Image(format, null, path);
+        }
+        Image image = Image.wrap(format, in.slice(in.position(), length), path);
+        in.position(in.position() + length);
+        return image;
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.zahaand.patterns.service.impl;
+
+import org.springframework.stereotype.Component;
+import ru.zahaand.patterns.enums.ContentType;
+
+/**
+ * Хранилище контента изображений. Используется {@code ServiceFacade} и {@code ImageContentStorageBridge}
+ * под квалификатором {@code imageContentService}.
+ *
+ * @see InMemoryContentService
+ */
+@Component("imageContentService")
+public class ImageContentService extends InMemoryContentService {
+
+    public ImageContentService() {
+        super(ContentType.IMAGE);
+    }
+}
@@ -0,0 +1,179 @@
+package ru.zahaand.patterns.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.domain.User;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.service.ContentService;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Класс {@code InMemoryContentService} представляет собой потокобезопасное хранилище контента в памяти,
+ * реализующее интерфейс {@link ContentService}.
+ *
+ * <p>Хранилище состоит из двух структур:
+ * <ul>
+ *     <li><strong>Первичный индекс</strong>: {@link ConcurrentHashMap} по идентификатору контента.
+ *     Блокировки в нем разделены по корзинам, поэтому операции над разными идентификаторами
+ *     выполняются параллельно и не мешают друг другу.</li>
+ *     <li><strong>Вторичный индекс</strong>: идентификаторы контента, сгруппированные по {@link User#getId()}.
+ *     Позволяет получить весь контент пользователя без полного просмотра хранилища.</li>
+ * </ul>
+ *
+ * <p>Все изменения вторичного индекса выполняются внутри {@code compute} первичного индекса для того же
+ * идентификатора контента, поэтому конкурентные {@code create/update/delete} одного и того же контента
+ * не могут оставить индекс в несогласованном состоянии. Чтение не блокируется.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     ContentService contentService = new InMemoryContentService(ContentType.TEXT);
+ *     Content content = contentService.create(new TextContent("Sample text", user));
+ *     List&lt;Content&gt; userContents = contentService.readByUser(user.getId());
+ * </pre>
+ */
+@Slf4j
+public class InMemoryContentService implements ContentService {
+
+    private final ContentType contentType;
+    private final ConcurrentMap<UUID, Entry> entriesById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, NavigableSet<UUID>> contentIdsByUserId = new ConcurrentHashMap<>();
+
+    /**
+     * @param contentType тип контента, который принимает хранилище
+     */
+    public InMemoryContentService(ContentType contentType) {
+        this.contentType = contentType;
+    }
+
+    @Override
+    public Content create(Content content) {
+        validateContent(content);
+
+        entriesById.compute(content.getId(), (id, existing) -> {
+            if (existing != null) {
+                throw new IllegalStateException("Content already exists: " + id);
+            }
+            return addToUserIndex(content);
+        });
+
+        log.debug("{} content created: {}", contentType, content.getId());
+        return content;
+    }
+
+    @Override
+    public Content read(UUID id) {
+        Entry entry = id == null ? null : entriesById.get(id);
+        return entry == null ? null : entry.content();
+    }
+
+    @Override
+    public List<Content> readByUser(UUID userId) {
+        return ContentPages.readAll(userId == null ? null : contentIdsByUserId.get(userId), this::read);
+    }
+
+    @Override
+    public List<Content> readByUser(UUID userId, UUID afterId, int limit) {
+        return ContentPages.readPage(userId == null ? null : contentIdsByUserId.get(userId), afterId, limit,
+                this::read);
+    }
+
+    @Override
+    public Content update(Content content) {
+        validateContent(content);
+
+        entriesById.compute(content.getId(), (id, existing) -> {
+            if (existing == null) {
+                throw new NoSuchElementException("Content not found: " + id);
+            }
+            if (Objects.equals(existing.userId(), userIdOf(content))) {
+                return new Entry(content, existing.userId());
+            }
+            removeFromUserIndex(existing);
+            return addToUserIndex(content);
+        });
+
+        log.debug("{} content updated: {}", contentType, content.getId());
+        return content;
+    }
+
+    @Override
+    public boolean delete(UUID id) {
+        if (id == null) {
+            return false;
+        }
+
+        boolean[] deleted = new boolean[1];
+        entriesById.computeIfPresent(id, (contentId, existing) -> {
+            removeFromUserIndex(existing);
+            deleted[0] = true;
+            return null;
+        });
+
+        if (deleted[0]) {
+            log.debug("{} content deleted: {}", contentType, id);
+        }
+        return deleted[0];
+    }
+
+    /**
+     * @return количество контента в хранилище
+     */
+    public int size() {
+        return entriesById.size();
+    }
+
+    private void validateContent(Content content) {
+        if (content == null || content.getId() == null) {
+            throw new IllegalArgumentException("Content and its ID must not be null");
+        }
+        if (content.getContentType() != contentType) {
+            log.error("Content validation ERROR: Invalid content type. Expected type: {}", contentType);
+            throw new IllegalArgumentException("Invalid content type");
+        }
+    }
+
+    private Entry addToUserIndex(Content content) {
+        UUID userId = userIdOf(content);
+        if (userId != null) {
+            contentIdsByUserId.compute(userId, (id, contentIds) -> {
+                NavigableSet<UUID> ids = contentIds == null ? new ConcurrentSkipListSet<>() : contentIds;
+                ids.add(content.getId());
+                return ids;
+            });
+        }
+        return new Entry(content, userId);
+    }
+
+    private void removeFromUserIndex(Entry entry) {
+        if (entry.userId() == null) {
+            return;
+        }
+
+        UUID contentId = entry.content().getId();
+        contentIdsByUserId.computeIfPresent(entry.userId(), (id, contentIds) -> {
+            contentIds.remove(contentId);
+            return contentIds.isEmpty() ? null : contentIds;
+        });
+    }
+
+    private static UUID userIdOf(Content content) {
+        User user = content.getUser();
+        return user == null ? null : user.getId();
+    }
+
+    /**
+     * Запись первичного индекса. Хранит идентификатор пользователя, под которым контент проиндексирован,
+     * отдельно от самого контента: контент может быть изменен вызывающей стороной до {@link #update(Content)},
+     * и только так можно найти прежнюю запись вторичного индекса.
+     */
+    private record Entry(Content content, UUID userId) {
+    }
+}
@@ -0,0 +1,178 @@
+package ru.zahaand.patterns.service.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Сегмент журнала {@link SegmentLogContentService}: файл фиксированного размера, целиком отображенный в память.
+ *
+ * <h3>Формат записи в сегменте:</h3>
+ * <pre>
+ *     length:int | crc32:int | type:byte | body
+ * </pre>
+ * Поле {@code length} покрывает {@code type} и {@code body} и записывается последним, после тела записи.
+ * Нулевая длина означает конец заполненной части сегмента, поэтому оборванная при сбое запись
+ * не видна при восстановлении.
+ *
+ * <p>Запись в сегмент выполняется только под блокировкой записи владельца. Чтение потокобезопасно:
+ * каждое чтение получает собственное представление {@link ByteBuffer#slice(int, int)}.
+ */
+final class LogSegment {
+
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+
+    static final byte PUT = 0;
+    static final byte TOMBSTONE = 1;
+
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong liveBytes = new AtomicLong();
+    private int writePosition;
+
+    private LogSegment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static LogSegment create(Path path, long id, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static LogSegment open(Path path, long id) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+    }
+
+    long id() {
+        return id;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    AtomicLong liveBytes() {
+        return liveBytes;
+    }
+
+    boolean hasRoom(int recordSize) {
+        return writePosition + recordSize <= buffer.capacity();
+    }
+
+    /**
+     * Дописывает запись в конец сегмента.
+     *
+     * @param type  тип записи: {@link #PUT} или {@link #TOMBSTONE}
+     * @param parts части тела записи
+     * @return смещение начала записи в сегменте
+     */
+    int append(byte type, ByteBuffer... parts) {
+        int offset = writePosition;
+        int bodyLength = 0;
+
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        for (ByteBuffer part : parts) {
+            bodyLength += part.remaining();
+            crc.update(part.duplicate());
+        }
+
+        int position = offset + RECORD_HEADER_SIZE;
+        buffer.put(position++, type);
+        for (ByteBuffer part : parts) {
+            int length = part.remaining();
+            buffer.put(position, part, part.position(), length);
+            position += length;
+        }
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(offset, bodyLength + 1);
+
+        writePosition = position;
+        return offset;
+    }
+
+    /**
+     * Проверяет целостность записи по указанному смещению.
+     *
+     * @return полный размер записи вместе с заголовком или {@code -1}, если записи нет или она повреждена
+     */
+    int validRecordSize(int offset) {
+        if (offset + RECORD_HEADER_SIZE > buffer.capacity()) {
+            return -1;
+        }
+
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + RECORD_HEADER_SIZE, length));
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES) ? RECORD_HEADER_SIZE + length : -1;
+    }
+
+    byte recordType(int offset) {
+        return buffer.get(offset + RECORD_HEADER_SIZE);
+    }
+
+    /**
+     * @return представление тела записи без заголовка и байта типа
+     */
+    ByteBuffer body(int offset, int recordSize) {
+        int bodyOffset = offset + RECORD_HEADER_SIZE + 1;
+        return buffer.slice(bodyOffset, recordSize - RECORD_HEADER_SIZE - 1);
+    }
+
+    /**
+     * Устанавливает позицию записи после восстановления.
+     */
+    void recoverWritePosition(int position) {
+        writePosition = position;
+    }
+
+    /**
+     * Обнуляет хвост сегмента после позиции записи, чтобы остатки оборванной записи
+     * не были приняты за валидные данные после дозаписи в сегмент.
+     */
+    void truncateTail() {
+        for (int i = writePosition; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Закрывает и удаляет файл сегмента. Уже выданные представления буфера остаются доступными
+     * до сборки мусора, поэтому конкурентные чтения не прерываются.
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
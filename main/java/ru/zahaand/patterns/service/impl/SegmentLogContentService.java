@@ -0,0 +1,434 @@
+package ru.zahaand.patterns.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.service.ContentService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Класс {@code SegmentLogContentService} представляет собой долговременное хранилище контента,
+ * реализующее интерфейс {@link ContentService} поверх журнала только для добавления (append-only log).
+ *
+ * <p>Журнал состоит из сегментов фиксированного размера, отображенных в память ({@link LogSegment}).
+ * Каждое создание, изменение или удаление контента дописывает запись в конец активного сегмента,
+ * поэтому запись на диск всегда последовательна. Индекс смещений в памяти указывает на последнюю версию
+ * каждой записи, и чтение декодирует контент непосредственно из отображенного сегмента, без системных вызовов
+ * и промежуточных буферов.
+ *
+ * <p>При запуске индекс восстанавливается последовательным просмотром сегментов, без обращения к базе данных.
+ * Фоновый компактор переписывает живые записи из сегментов с большой долей мусора в активный сегмент
+ * и удаляет освободившиеся файлы.
+ *
+ * <h3>Основные свойства:</h3>
+ * <ul>
+ *     <li><strong>Последовательная запись</strong>: все записи выполняются под одной блокировкой в конец активного сегмента.</li>
+ *     <li><strong>Неблокирующее чтение</strong>: чтение использует только индекс и отображенную память.</li>
+ *     <li><strong>Устойчивость к сбоям</strong>: запись становится видимой только после записи ее длины,
+ *     оборванные записи отбрасываются при восстановлении по контрольной сумме.
+ *     Данные гарантированно сброшены на диск после {@link #flush()} или {@link #close()}.</li>
+ * </ul>
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (SegmentLogContentService contentService = new SegmentLogContentService(Path.of("data/content"))) {
+ *         contentService.create(new TextContent("Sample text", user));
+ *     }
+ * </pre>
+ */
+@Slf4j
+public class SegmentLogContentService implements ContentService, Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+
+    private final ConcurrentNavigableMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<UUID, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, NavigableSet<UUID>> contentIdsByUserId = new ConcurrentHashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+    private volatile LogSegment activeSegment;
+
+    public SegmentLogContentService(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_THRESHOLD, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    /**
+     * @param directory           каталог с файлами сегментов
+     * @param segmentSize         размер одного сегмента в байтах
+     * @param compactionThreshold доля живых данных, ниже которой закрытый сегмент компактируется
+     * @param compactionInterval  период запуска фонового компактора
+     */
+    public SegmentLogContentService(Path directory, int segmentSize,
+                                    double compactionThreshold, Duration compactionInterval) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        recover();
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "content-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = compactionInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Content create(Content content) {
+        validateContent(content);
+        writeLock.lock();
+        try {
+            if (index.containsKey(content.getId())) {
+                throw new IllegalStateException("Content already exists: " + content.getId());
+            }
+            put(content);
+        } finally {
+            writeLock.unlock();
+        }
+        return content;
+    }
+
+    @Override
+    public Content read(UUID id) {
+        Location location = id == null ? null : index.get(id);
+        return location == null ? null : ContentRecordCodec.decode(location.body());
+    }
+
+    @Override
+    public List<Content> readByUser(UUID userId) {
+        return ContentPages.readAll(userId == null ? null : contentIdsByUserId.get(userId), this::read);
+    }
+
+    @Override
+    public List<Content> readByUser(UUID userId, UUID afterId, int limit) {
+        return ContentPages.readPage(userId == null ? null : contentIdsByUserId.get(userId), afterId, limit,
+                this::read);
+    }
+
+    @Override
+    public Content update(Content content) {
+        validateContent(content);
+        writeLock.lock();
+        try {
+            if (!index.containsKey(content.getId())) {
+                throw new NoSuchElementException("Content not found: " + content.getId());
+            }
+            put(content);
+        } finally {
+            writeLock.unlock();
+        }
+        return content;
+    }
+
+    @Override
+    public boolean delete(UUID id) {
+        if (id == null) {
+            return false;
+        }
+
+        writeLock.lock();
+        try {
+            Location previous = index.get(id);
+            if (previous == null) {
+                return false;
+            }
+
+            ByteBuffer tombstone = ByteBuffer.allocate(2 * Long.BYTES)
+                    .putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .flip();
+            append(LogSegment.TOMBSTONE, tombstone);
+
+            index.remove(id);
+            release(previous);
+            removeFromUserIndex(id, previous.userId());
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает активный сегмент на диск.
+     */
+    public void flush() {
+        activeSegment.force();
+    }
+
+    /**
+     * Компактирует все закрытые сегменты, доля живых данных в которых ниже порога.
+     * Живые записи переписываются в активный сегмент, который сбрасывается на диск до удаления файла сегмента.
+     */
+    public synchronized void compact() throws IOException {
+        for (LogSegment segment : segments.values()) {
+            if (segment != activeSegment && segment.writePosition() > 0
+                    && segment.liveBytes().get() < compactionThreshold * segment.writePosition()) {
+                compact(segment);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeLock.lock();
+        try {
+            for (LogSegment segment : segments.values()) {
+                segment.force();
+                segment.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return количество записей в индексе
+     */
+    public int size() {
+        return index.size();
+    }
+
+    private void put(Content content) {
+        ByteBuffer[] record = ContentRecordCodec.encode(content);
+        Location location = append(LogSegment.PUT, record);
+
+        Location previous = index.put(content.getId(), location);
+        UUID previousUserId = previous == null ? null : previous.userId();
+        if (previous != null) {
+            release(previous);
+        }
+        if (!Objects.equals(previousUserId, location.userId())) {
+            removeFromUserIndex(content.getId(), previousUserId);
+            addToUserIndex(content.getId(), location.userId());
+        }
+    }
+
+    private Location append(byte type, ByteBuffer... parts) {
+        int recordSize = LogSegment.RECORD_HEADER_SIZE + 1;
+        for (ByteBuffer part : parts) {
+            recordSize += part.remaining();
+        }
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of %d bytes does not fit into segment of %d bytes"
+                    .formatted(recordSize, segmentSize));
+        }
+
+        try {
+            if (!activeSegment.hasRoom(recordSize)) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Content log segment roll failed", e);
+        }
+
+        LogSegment segment = activeSegment;
+        int offset = segment.append(type, parts);
+        if (type == LogSegment.PUT) {
+            segment.liveBytes().addAndGet(recordSize);
+        }
+
+        UUID userId = type == LogSegment.PUT ? ContentRecordCodec.readUserId(parts[0]) : null;
+        return new Location(segment, offset, recordSize, userId);
+    }
+
+    private void rollSegment() throws IOException {
+        activeSegment.force();
+        long nextId = activeSegment.id() + 1;
+        LogSegment segment = LogSegment.create(segmentPath(nextId), nextId, segmentSize);
+        segments.put(nextId, segment);
+        activeSegment = segment;
+        log.info("Content log rolled to segment {}", nextId);
+    }
+
+    private void compact(LogSegment segment) throws IOException {
+        log.info("Compacting content log segment {} ({} of {} bytes live)",
+                segment.id(), segment.liveBytes().get(), segment.writePosition());
+
+        boolean olderSegmentsExist = segments.firstKey() < segment.id();
+        int offset = 0;
+        while (offset < segment.writePosition()) {
+            int recordSize = segment.validRecordSize(offset);
+            if (recordSize < 0) {
+                break;
+            }
+
+            ByteBuffer body = segment.body(offset, recordSize);
+            writeLock.lock();
+            try {
+                if (segment.recordType(offset) == LogSegment.PUT) {
+                    UUID id = ContentRecordCodec.readId(body);
+                    Location location = index.get(id);
+                    if (location != null && location.segment() == segment && location.offset() == offset) {
+                        index.put(id, append(LogSegment.PUT, body));
+                    }
+                } else if (olderSegmentsExist) {
+                    UUID id = new UUID(body.getLong(0), body.getLong(Long.BYTES));
+                    Location location = index.get(id);
+                    if (location == null || isBefore(location, segment, offset)) {
+                        append(LogSegment.TOMBSTONE, body);
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            offset += recordSize;
+        }
+
+        activeSegment.force();
+        segments.remove(segment.id());
+        segment.delete();
+    }
+
+    /**
+     * Проверяет, что запись находится в журнале раньше заданной позиции. Надгробие, после которого контент
+     * был создан снова, переносить при компактировании нельзя: оно оказалось бы после живой записи
+     * и удалило бы ее при восстановлении.
+     */
+    private static boolean isBefore(Location location, LogSegment segment, int offset) {
+        return location.segment().id() < segment.id()
+                || location.segment() == segment && location.offset() < offset;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            log.error("Content log compaction failed", e);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            LogSegment segment = LogSegment.open(path, id);
+            segments.put(id, segment);
+            segment.recoverWritePosition(replay(segment));
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(0L, LogSegment.create(segmentPath(0), 0, segmentSize));
+        }
+        activeSegment = segments.lastEntry().getValue();
+        activeSegment.truncateTail();
+        log.info("Content log recovered: {} segments, {} records", segments.size(), index.size());
+    }
+
+    private int replay(LogSegment segment) {
+        int offset = 0;
+        int recordSize;
+        while ((recordSize = segment.validRecordSize(offset)) > 0) {
+            ByteBuffer body = segment.body(offset, recordSize);
+
+            if (segment.recordType(offset) == LogSegment.PUT) {
+                UUID id = ContentRecordCodec.readId(body);
+                Location location = new Location(segment, offset, recordSize, ContentRecordCodec.readUserId(body));
+                segment.liveBytes().addAndGet(recordSize);
+                Location previous = index.put(id, location);
+                if (previous != null) {
+                    release(previous);
+                    removeFromUserIndex(id, previous.userId());
+                }
+                addToUserIndex(id, location.userId());
+            } else {
+                UUID id = new UUID(body.getLong(0), body.getLong(Long.BYTES));
+                Location previous = index.remove(id);
+                if (previous != null) {
+                    release(previous);
+                    removeFromUserIndex(id, previous.userId());
+                }
+            }
+            offset += recordSize;
+        }
+        return offset;
+    }
+
+    private void release(Location location) {
+        location.segment().liveBytes().addAndGet(-location.recordSize());
+    }
+
+    private void addToUserIndex(UUID contentId, UUID userId) {
+        if (userId != null) {
+            contentIdsByUserId.computeIfAbsent(userId, id -> new ConcurrentSkipListSet<>()).add(contentId);
+        }
+    }
+
+    private void removeFromUserIndex(UUID contentId, UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        contentIdsByUserId.computeIfPresent(userId, (id, contentIds) -> {
+            contentIds.remove(contentId);
+            return contentIds.isEmpty() ? null : contentIds;
+        });
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve("%s%010d%s".formatted(SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static void validateContent(Content content) {
+        if (content == null || content.getId() == null) {
+            throw new IllegalArgumentException("Content and its ID must not be null");
+        }
+    }
+
+    /**
+     * Положение записи в журнале.
+     */
+    private record Location(LogSegment segment, int offset, int recordSize, UUID userId) {
+
+        ByteBuffer body() {
+            return segment.body(offset, recordSize);
+        }
+    }
+}
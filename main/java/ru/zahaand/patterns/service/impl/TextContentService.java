@@ -0,0 +1,18 @@
+package ru.zahaand.patterns.service.impl;
+
+import org.springframework.stereotype.Component;
+import ru.zahaand.patterns.enums.ContentType;
+
+/**
+ * Хранилище текстового контента. Используется {@code ServiceFacade} и {@code TextContentStorageBridge}
+ * под квалификатором {@code textContentService}.
+ *
+ * @see InMemoryContentService
+ */
+@Component("textContentService")
+public class TextContentService extends InMemoryContentService {
+
+    public TextContentService() {
+        super(ContentType.TEXT);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.zahaand.patterns.strategy;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.concurrent.ChunkedRangeTask;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.enums.ContentType;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Класс {@code BatchContentProcessor} выполняет параллельную обработку больших наборов контента стратегиями
+ * из {@link ContentProcessingStrategyRegistry}.
+ *
+ * <p>Контент разбивается на группы по типу, стратегия каждой группы выбирается один раз. Группы делятся
+ * на части задачами fork/join до размера порции и обрабатываются в пуле с перехватом работы, поэтому потоки,
+ * закончившие свои части, забирают части других групп. Порядок обработки элементов не гарантируется.
+ * Если обработка элемента завершилась исключением, оно пробрасывается из метода обработки после завершения
+ * уже запущенных задач.
+ *
+ * <p>Процессор, созданный с уровнем параллелизма, владеет собственным пулом и должен быть закрыт.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (BatchContentProcessor processor = new BatchContentProcessor(registry, 8)) {
+ *         Map&lt;ContentType, Integer&gt; processed = processor.process(contentService.readAll());
+ *     }
+ * </pre>
+ */
+@Slf4j
+public class BatchContentProcessor implements Closeable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final ContentProcessingStrategyRegistry registry;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int chunkSize;
+
+    /**
+     * Создает процессор с собственным пулом.
+     *
+     * @param registry    стратегии обработки
+     * @param parallelism количество потоков пула
+     */
+    public BatchContentProcessor(ContentProcessingStrategyRegistry registry, int parallelism) {
+        this(registry, new ForkJoinPool(parallelism), true, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Создает процессор, использующий внешний пул. Пул не закрывается при закрытии процессора.
+     *
+     * @param registry  стратегии обработки
+     * @param pool      пул, в котором выполняется обработка
+     * @param chunkSize количество элементов, обрабатываемых одной задачей последовательно
+     */
+    public BatchContentProcessor(ContentProcessingStrategyRegistry registry, ForkJoinPool pool, int chunkSize) {
+        this(registry, pool, false, chunkSize);
+    }
+
+    private BatchContentProcessor(ContentProcessingStrategyRegistry registry, ForkJoinPool pool, boolean ownsPool,
+                                  int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.registry = registry;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Обрабатывает набор контента.
+     *
+     * @param contents контент для обработки
+     * @return количество обработанных элементов по типам
+     * @throws IllegalArgumentException если для типа контента нет стратегии
+     */
+    public Map<ContentType, Integer> process(Collection<? extends Content> contents) {
+        return process(contents.stream());
+    }
+
+    /**
+     * Обрабатывает поток контента. Поток читается полностью и последовательно до начала обработки.
+     *
+     * @param contents контент для обработки
+     * @return количество обработанных элементов по типам
+     * @throws IllegalArgumentException если для типа контента нет стратегии
+     */
+    public Map<ContentType, Integer> process(Stream<? extends Content> contents) {
+        Map<ContentType, List<Content>> partitions = new EnumMap<>(ContentType.class);
+        // Группы собираются в непотокобезопасные коллекции, поэтому параллельный поток читается последовательно
+        contents.sequential().forEach(content -> {
+            ContentType type = content.getContentType();
+            if (!registry.supports(type)) {
+                throw new IllegalArgumentException("No processing strategy for content type: " + type);
+            }
+            partitions.computeIfAbsent(type, t -> new ArrayList<>()).add(content);
+        });
+
+        List<ChunkedRangeTask> tasks = new ArrayList<>(partitions.size());
+        Map<ContentType, Integer> processed = new EnumMap<>(ContentType.class);
+        partitions.forEach((type, partition) -> {
+            ContentProcessingStrategy strategy = registry.strategyFor(type);
+            tasks.add(new ChunkedRangeTask(0, partition.size(), chunkSize, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    strategy.processContent(partition.get(i));
+                }
+            }));
+            processed.put(type, partition.size());
+        });
+
+        long start = System.nanoTime();
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        log.debug("Processed {} in {} ms with parallelism {}", processed, (System.nanoTime() - start) / 1_000_000,
+                pool.getParallelism());
+        return processed;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+}
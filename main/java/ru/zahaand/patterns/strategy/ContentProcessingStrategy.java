@@ -3,6 +3,7 @@ package ru.zahaand.patterns.strategy;
 import ru.zahaand.patterns.domain.Content;
 import ru.zahaand.patterns.domain.impl.ImageContent;
 import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.enums.ContentType;
 import ru.zahaand.patterns.strategy.impl.ImageContentProcessingStrategy;
 import ru.zahaand.patterns.strategy.impl.TextContentProcessingStrategy;
 
@@ -52,5 +53,10 @@ public interface ContentProcessingStrategy {
      * @param content Объект контента, который необходимо обработать.
      */
     void processContent(Content content);
+
+    /**
+     * @return тип контента, который обрабатывает стратегия
+     */
+    ContentType getSupportedType();
 }
 
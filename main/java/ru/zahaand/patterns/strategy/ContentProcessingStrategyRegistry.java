@@ -0,0 +1,72 @@
+package ru.zahaand.patterns.strategy;
+
+import org.springframework.stereotype.Component;
+import ru.zahaand.patterns.domain.Content;
+import ru.zahaand.patterns.enums.ContentType;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс {@code ContentProcessingStrategyRegistry} хранит стратегии обработки контента по типу контента.
+ *
+ * <p>Стратегия для контента выбирается по {@link Content#getContentType()} за постоянное время,
+ * поэтому вызывающему коду не нужно выбирать стратегию самому.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     ContentProcessingStrategyRegistry registry = ContentProcessingStrategyRegistry.of(
+ *             new TextContentProcessingStrategy(), new ImageContentProcessingStrategy());
+ *     registry.process(content);
+ * </pre>
+ */
+@Component
+public class ContentProcessingStrategyRegistry {
+
+    private final Map<ContentType, ContentProcessingStrategy> strategies = new EnumMap<>(ContentType.class);
+
+    /**
+     * @param strategies стратегии; для каждого типа контента допускается не более одной стратегии
+     */
+    public ContentProcessingStrategyRegistry(Collection<? extends ContentProcessingStrategy> strategies) {
+        for (ContentProcessingStrategy strategy : strategies) {
+            ContentType type = strategy.getSupportedType();
+            if (type == null) {
+                throw new IllegalArgumentException("Strategy has no content type: " + strategy.getClass().getName());
+            }
+            if (this.strategies.putIfAbsent(type, strategy) != null) {
+                throw new IllegalArgumentException("Duplicate strategy for content type: " + type);
+            }
+        }
+    }
+
+    public static ContentProcessingStrategyRegistry of(ContentProcessingStrategy... strategies) {
+        return new ContentProcessingStrategyRegistry(List.of(strategies));
+    }
+
+    /**
+     * @param type тип контента
+     * @return стратегия обработки контента этого типа
+     * @throws IllegalArgumentException если стратегия для типа не зарегистрирована
+     */
+    public ContentProcessingStrategy strategyFor(ContentType type) {
+        ContentProcessingStrategy strategy = type == null ? null : strategies.get(type);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No processing strategy for content type: " + type);
+        }
+        return strategy;
+    }
+
+    public boolean supports(ContentType type) {
+        return type != null && strategies.containsKey(type);
+    }
+
+    /**
+     * Обрабатывает контент стратегией его типа.
+     */
+    public void process(Content content) {
+        content.process(strategyFor(content.getContentType()));
+    }
+}
@@ -4,13 +4,21 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.extern.slf4j.XSlf4j;
 import ru.zahaand.patterns.domain.Content;
 import ru.zahaand.patterns.domain.impl.ImageContent;
+import ru.zahaand.patterns.enums.ContentType;
 import ru.zahaand.patterns.strategy.ContentProcessingStrategy;
 
 @Slf4j
 public class ImageContentProcessingStrategy implements ContentProcessingStrategy {
     @Override
     public void processContent(Content content) {
-        ImageContent imageContent = (ImageContent) content;
+        if (!(content instanceof ImageContent imageContent)) {
+            throw new IllegalArgumentException("Unsupported content for image strategy: " + content.getClass().getSimpleName());
+        }
         log.info("Processing image content: {}", imageContent);
     }
+
+    @Override
+    public ContentType getSupportedType() {
+        return ContentType.IMAGE;
+    }
 }
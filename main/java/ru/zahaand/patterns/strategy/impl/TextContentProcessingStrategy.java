@@ -3,6 +3,7 @@ package ru.zahaand.patterns.strategy.impl;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.domain.Content;
 import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.enums.ContentType;
 import ru.zahaand.patterns.strategy.ContentProcessingStrategy;
 
 @Slf4j
@@ -10,7 +11,14 @@ public class TextContentProcessingStrategy implements ContentProcessingStrategy
 
     @Override
     public void processContent(Content content) {
-        TextContent textContent = (TextContent) content;
+        if (!(content instanceof TextContent textContent)) {
+            throw new IllegalArgumentException("Unsupported content for text strategy: " + content.getClass().getSimpleName());
+        }
         log.info("Processing text content: {}", textContent);
     }
+
+    @Override
+    public ContentType getSupportedType() {
+        return ContentType.TEXT;
+    }
 }
@@ -7,6 +7,8 @@ import ru.zahaand.patterns.domain.impl.TextContent;
 import ru.zahaand.patterns.template_method.impl.ImageContentProcessor;
 import ru.zahaand.patterns.template_method.impl.TextContentProcessor;
 
+import java.util.List;
+
 /**
  * <h1>Паттерн Template Method. Шаблонный метод</h1>
  * Абстрактный класс {@code ContentProcessor} демонстрирует применение паттерна Template Method.
@@ -78,7 +80,21 @@ public abstract class ContentProcessor {
      *
      * @param content объект контента для сохранения
      */
-    private void saveContent(Content content) {
+    protected void saveContent(Content content) {
         log.info("Saving Content with ID: {}", content.getId());
     }
+
+    /**
+     * Метод для сохранения пакета контента. Используется конвейерным режимом {@link PipelinedContentProcessor}.
+     * Реализация по умолчанию сохраняет элементы по одному методом {@link #saveContent(Content)}, поэтому
+     * переопределенное сохранение выполняется и в конвейерном режиме; подклассы, сохраняющие контент во внешнее
+     * хранилище, переопределяют метод для записи пакета одной операцией.
+     *
+     * @param contents пакет контента для сохранения
+     */
+    protected void saveContentBatch(List<? extends Content> contents) {
+        for (Content content : contents) {
+            saveContent(content);
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package ru.zahaand.patterns.template_method;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс {@code LatencyHistogram} накапливает распределение задержек без блокировок.
+ *
+ * <p>Задержки в наносекундах раскладываются по корзинам степеней двойки, поэтому запись выполняется за постоянное
+ * время, а перцентиль оценивается сверху с точностью до двух раз. Этого достаточно, чтобы видеть порядок задержек
+ * и хвосты распределения.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * @param nanos задержка в наносекундах
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 1);
+        counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value) - 1);
+        totalNanos.add(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return средняя задержка в наносекундах или {@code 0}, если задержек не было
+     */
+    public long getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.sum() / count;
+    }
+
+    /**
+     * @param percentile перцентиль от 0 до 100
+     * @return верхняя граница корзины, в которую попадает перцентиль, в наносекундах, или {@code 0},
+     * если задержек не было
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100]");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
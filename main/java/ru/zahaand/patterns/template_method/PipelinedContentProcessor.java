@@ -0,0 +1,330 @@
+package ru.zahaand.patterns.template_method;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.domain.Content;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Класс {@code PipelinedContentProcessor} выполняет шаги шаблонного метода {@link ContentProcessor} конвейером.
+ *
+ * <p>Валидация, модификация и сохранение выполняются отдельными этапами, у каждого из которых своя ограниченная
+ * очередь и свои рабочие потоки. Поэтому валидация следующего элемента выполняется одновременно с модификацией
+ * и сохранением предыдущих. Этап сохранения забирает из очереди все накопившиеся элементы (но не больше размера
+ * пакета) и сохраняет их одной операцией {@link ContentProcessor#saveContentBatch(List)}. Если очередь этапа
+ * заполнена, предыдущий этап ждет, а {@link #submit(Content)} блокирует вызывающий поток.
+ *
+ * <p>Ошибка этапа, в том числе {@link Error}, завершает с ошибкой результат только того элемента, на котором она
+ * произошла; ошибка сохранения пакета — результаты всех элементов пакета. Рабочие потоки при этом продолжают работу.
+ * Если все рабочие потоки этапа завершились, например после прерывания, результаты элементов, ожидающих этого этапа,
+ * завершаются с ошибкой, а постановка в его очередь больше не блокируется.
+ * При нескольких потоках этапа порядок элементов не сохраняется.
+ *
+ * <p>Для каждого этапа ведутся показатели ({@link StageMetrics}): глубина очереди, количество обработанных
+ * элементов, пропускная способность и гистограмма задержек. Для этапа сохранения задержка измеряется на пакет.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (PipelinedContentProcessor pipeline = new PipelinedContentProcessor(new TextContentProcessor(), 1024, 2, 2, 64)) {
+ *         contents.forEach(pipeline::submit);
+ *         pipeline.getMetrics().forEach(metrics -&gt; log.info("{}", metrics));
+ *     }
+ * </pre>
+ */
+@Slf4j
+public class PipelinedContentProcessor implements Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+
+    private static final Item SHUTDOWN = new Item(null);
+    private static final long OFFER_TIMEOUT_MILLIS = 10;
+
+    private final Stage validation;
+    private final Stage modification;
+    private final Stage saving;
+    private final int maxBatchSize;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Постановка в очередь выполняется под блокировкой чтения, закрытие — под блокировкой записи, поэтому
+     * ни один элемент не попадает в очередь валидации после признака остановки.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public PipelinedContentProcessor(ContentProcessor processor) {
+        this(processor, DEFAULT_QUEUE_CAPACITY, 1, 1, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param processor           процессор, шаги которого выполняются этапами
+     * @param queueCapacity       емкость очереди каждого этапа
+     * @param validationWorkers   количество потоков этапа валидации
+     * @param modificationWorkers количество потоков этапа модификации
+     * @param maxBatchSize        максимальный размер пакета сохранения
+     */
+    public PipelinedContentProcessor(ContentProcessor processor, int queueCapacity, int validationWorkers,
+                                     int modificationWorkers, int maxBatchSize) {
+        if (queueCapacity <= 0 || validationWorkers <= 0 || modificationWorkers <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity, worker counts and batch size must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.saving = new Stage("save", queueCapacity, 1, null);
+        this.saving.start(() -> runSaving(processor));
+        this.modification = new Stage("modify", queueCapacity, modificationWorkers, saving);
+        this.modification.start(() -> runStep(modification, processor::modifyContent));
+        this.validation = new Stage("validate", queueCapacity, validationWorkers, modification);
+        this.validation.start(() -> runStep(validation, processor::validateContent));
+    }
+
+    /**
+     * Передает контент в конвейер. Если очередь валидации заполнена, блокирует вызывающий поток до появления места.
+     *
+     * @param content контент для обработки
+     * @return результат, который завершится после сохранения контента
+     * @throws RejectedExecutionException если конвейер закрыт
+     */
+    public CompletableFuture<Content> submit(Content content) {
+        Item item = new Item(content);
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Content pipeline is closed");
+            }
+            validation.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            item.result.completeExceptionally(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return item.result;
+    }
+
+    /**
+     * @return показатели этапов в порядке их выполнения
+     */
+    public List<StageMetrics> getMetrics() {
+        double elapsedSeconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        return List.of(validation.metrics(elapsedSeconds), modification.metrics(elapsedSeconds),
+                saving.metrics(elapsedSeconds));
+    }
+
+    /**
+     * Прекращает прием контента, дожидается обработки уже принятого и останавливает рабочие потоки.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        validation.stop();
+        modification.stop();
+        saving.stop();
+        log.info("Content pipeline closed: {}", getMetrics());
+    }
+
+    private void runStep(Stage stage, Consumer<Content> step) {
+        Item item = null;
+        try {
+            while (true) {
+                item = stage.queue.take();
+                if (item == SHUTDOWN) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    step.accept(item.content);
+                } catch (Throwable e) {
+                    stage.failed.increment();
+                    item.result.completeExceptionally(e);
+                    continue;
+                }
+                stage.latency.record(System.nanoTime() - start);
+                stage.processed.increment();
+                stage.next.put(item);
+                item = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Элемент, взятый из очереди, но не переданный дальше, больше никто не обработает
+            if (item != null) {
+                item.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void runSaving(ContentProcessor processor) {
+        List<Item> batch = new ArrayList<>(maxBatchSize);
+        List<Content> contents = new ArrayList<>(maxBatchSize);
+        boolean running = true;
+        try {
+            while (running) {
+                batch.add(saving.queue.take());
+                saving.queue.drainTo(batch, maxBatchSize - 1);
+                if (batch.get(batch.size() - 1) == SHUTDOWN) {
+                    batch.remove(batch.size() - 1);
+                    running = false;
+                }
+                if (!batch.isEmpty()) {
+                    save(processor, batch, contents);
+                }
+                batch.clear();
+                contents.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void save(ContentProcessor processor, List<Item> batch, List<Content> contents) {
+        for (Item item : batch) {
+            contents.add(item.content);
+        }
+
+        long start = System.nanoTime();
+        try {
+            processor.saveContentBatch(contents);
+        } catch (Throwable e) {
+            log.error("Content batch save failed, batch size: {}", batch.size(), e);
+            saving.failed.add(batch.size());
+            batch.forEach(item -> item.result.completeExceptionally(e));
+            return;
+        }
+        saving.latency.record(System.nanoTime() - start);
+        saving.processed.add(batch.size());
+        batch.forEach(item -> item.result.complete(item.content));
+    }
+
+    /**
+     * Этап конвейера: очередь, рабочие потоки и показатели.
+     */
+    private static final class Stage {
+
+        private final String name;
+        private final BlockingQueue<Item> queue;
+        private final Thread[] workers;
+        private final AtomicInteger liveWorkers = new AtomicInteger();
+        private final Stage next;
+
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Stage(String name, int capacity, int workerCount, Stage next) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.workers = new Thread[workerCount];
+            this.next = next;
+        }
+
+        private void start(Runnable task) {
+            liveWorkers.set(workers.length);
+            Runnable worker = () -> {
+                try {
+                    task.run();
+                } finally {
+                    if (liveWorkers.decrementAndGet() == 0) {
+                        failQueued();
+                    }
+                }
+            };
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(worker, "content-pipeline-" + name + "-" + (i + 1));
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        /**
+         * Ставит элемент в очередь этапа, ожидая появления места, пока у этапа есть рабочие потоки.
+         * Если рабочих потоков не осталось, результат элемента завершается с ошибкой.
+         */
+        private void put(Item item) throws InterruptedException {
+            while (!queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (liveWorkers.get() == 0) {
+                    item.result.completeExceptionally(stopped());
+                    return;
+                }
+            }
+            // Последний рабочий поток мог завершиться после проверки очереди, но до постановки элемента
+            if (liveWorkers.get() == 0) {
+                failQueued();
+            }
+        }
+
+        /**
+         * Останавливает потоки этапа после обработки всех элементов, уже стоящих в очереди.
+         * Так как этапы останавливаются по порядку, к этому моменту предыдущий этап уже передал все свои элементы.
+         */
+        private void stop() {
+            try {
+                for (int i = 0; i < workers.length; i++) {
+                    while (!queue.offer(SHUTDOWN, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (liveWorkers.get() == 0) {
+                            break;
+                        }
+                    }
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Завершает с ошибкой результаты элементов, оставшихся в очереди этапа без рабочих потоков.
+         */
+        private void failQueued() {
+            List<Item> stranded = new ArrayList<>();
+            queue.drainTo(stranded);
+            for (Item item : stranded) {
+                if (item != SHUTDOWN) {
+                    item.result.completeExceptionally(stopped());
+                }
+            }
+        }
+
+        private RejectedExecutionException stopped() {
+            return new RejectedExecutionException("Content pipeline stage has no running workers: " + name);
+        }
+
+        private StageMetrics metrics(double elapsedSeconds) {
+            long processedCount = processed.sum();
+            return new StageMetrics(name, queue.size(), processedCount, failed.sum(), processedCount / elapsedSeconds,
+                    latency.getMeanNanos(), latency.getPercentileNanos(50), latency.getPercentileNanos(99));
+        }
+    }
+
+    private static final class Item {
+
+        private final Content content;
+        private final CompletableFuture<Content> result = new CompletableFuture<>();
+
+        private Item(Content content) {
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.zahaand.patterns.template_method;
+
+/**
+ * Снимок показателей этапа {@link PipelinedContentProcessor}.
+ *
+ * @param stage              название этапа
+ * @param queueDepth         количество элементов, ожидающих этапа
+ * @param processed          количество элементов, успешно прошедших этап
+ * @param failed             количество элементов, на которых этап завершился ошибкой
+ * @param throughputPerSecond средняя пропускная способность этапа с момента запуска в элементах в секунду
+ * @param meanNanos          средняя задержка обработки элемента этапом
+ * @param p50Nanos           оценка медианы задержки
+ * @param p99Nanos           оценка 99-го перцентиля задержки
+ */
+public record StageMetrics(String stage, int queueDepth, long processed, long failed, double throughputPerSecond,
+                           long meanNanos, long p50Nanos, long p99Nanos) {
+}
@@ -2,7 +2,7 @@ package ru.zahaand.patterns.template_method.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.domain.Content;
-import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.domain.impl.ImageContent;
 import ru.zahaand.patterns.template_method.ContentProcessor;
 
 @Slf4j
@@ -12,7 +12,7 @@ public class ImageContentProcessor extends ContentProcessor {
     protected void validateContent(Content content) {
         log.info("Image content validation starts...");
 
-        if (!(content instanceof TextContent)) {
+        if (!(content instanceof ImageContent)) {
             log.error("Content validation ERROR: Invalid content type. Expected type: Image");
             throw new IllegalArgumentException("Invalid content type");
         }
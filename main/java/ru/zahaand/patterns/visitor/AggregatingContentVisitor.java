@@ -0,0 +1,54 @@
+package ru.zahaand.patterns.visitor;
+
+import ru.zahaand.patterns.domain.Content;
+
+/**
+ * Интерфейс {@code AggregatingContentVisitor} описывает посетителя, который не выполняет действие над контентом,
+ * а накапливает по нему результат: статистику, сводку или индекс.
+ *
+ * <p>Экземпляр посетителя — накопитель одного потока: он не потокобезопасен и собирает частичный результат
+ * по посещенным им элементам. Для параллельного обхода {@link ParallelContentVisitorRunner} создает
+ * по посетителю на каждый рабочий поток и после обхода объединяет их частичные результаты методом
+ * {@link #merge(Object, Object)}. Объединение должно быть ассоциативным, а результат не должен зависеть от того,
+ * как элементы распределились между потоками.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     StorageFootprint footprint = new StorageFootprintContentVisitor().aggregate(contents);
+ *
+ *     try (ParallelContentVisitorRunner runner = new ParallelContentVisitorRunner(8)) {
+ *         StorageFootprint parallelFootprint = runner.run(contents, StorageFootprintContentVisitor::new);
+ *     }
+ * </pre>
+ *
+ * @param <R> тип результата
+ */
+public interface AggregatingContentVisitor<R> extends ContentVisitor {
+
+    /**
+     * @return результат по всем элементам, посещенным этим посетителем
+     */
+    R getResult();
+
+    /**
+     * Объединяет частичные результаты двух посетителей. Метод может изменить и вернуть {@code left}.
+     *
+     * @param left  результат первого посетителя
+     * @param right результат второго посетителя; после вызова не используется
+     * @return объединенный результат
+     */
+    R merge(R left, R right);
+
+    /**
+     * Последовательно посещает контент этим посетителем.
+     *
+     * @param contents контент для обхода
+     * @return результат по всем элементам, посещенным этим посетителем
+     */
+    default R aggregate(Iterable<? extends Content> contents) {
+        for (Content content : contents) {
+            content.acceptVisitor(this);
+        }
+        return getResult();
+    }
+}
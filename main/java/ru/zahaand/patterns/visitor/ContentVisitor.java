@@ -28,7 +28,6 @@ import ru.zahaand.patterns.visitor.impl.InfoPrinterContentVisitor;
  * <h3>Пример использования:</h3>
  * <pre>
  *     ContentVisitor infoPrinter = new InfoPrinterContentVisitor();
- *     ContentVisitor archiver = new ArchiverContentVisitor();
  *
  *     Content textContent = new TextContent("Example text", user);
  *     Content imageContent = new ImageContent(ImageFormat.PNG, "EncodedImage", user);
@@ -36,8 +35,11 @@ import ru.zahaand.patterns.visitor.impl.InfoPrinterContentVisitor;
  *     textContent.acceptVisitor(infoPrinter);
  *     imageContent.acceptVisitor(infoPrinter);
  *
- *     textContent.acceptVisitor(archiver);
- *     imageContent.acceptVisitor(archiver);
+ *     try (ParallelTarGzWriter writer = ParallelTarGzWriter.open(Path.of("content.tar.gz"), 4)) {
+ *         ContentVisitor archiver = new ArchiverContentVisitor(writer);
+ *         textContent.acceptVisitor(archiver);
+ *         imageContent.acceptVisitor(archiver);
+ *     }
  * </pre>
  * <p>
  * В этом примере для каждого типа контента ({@link TextContent}, {@link ImageContent}) используются разные посетители ({@link InfoPrinterContentVisitor}, {@link ArchiverContentVisitor}),
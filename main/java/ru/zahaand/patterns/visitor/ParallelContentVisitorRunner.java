@@ -0,0 +1,122 @@
+package ru.zahaand.patterns.visitor;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.zahaand.patterns.concurrent.ChunkedRangeTask;
+import ru.zahaand.patterns.domain.Content;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Класс {@code ParallelContentVisitorRunner} выполняет параллельный обход контента посетителями
+ * {@link AggregatingContentVisitor} по схеме fork/join.
+ *
+ * <p>Набор контента делится задачами fork/join на части до размера порции, которые обрабатываются в пуле
+ * с перехватом работы. Каждый рабочий поток посещает свои части собственным посетителем, поэтому во время обхода
+ * потоки не разделяют изменяемого состояния и не синхронизируются. После обхода частичные результаты потоков
+ * объединяются: количество объединений равно количеству потоков, а не количеству порций.
+ *
+ * <p>Если посещение элемента завершилось исключением, оно пробрасывается из метода обхода после завершения
+ * уже запущенных задач. Обходчик, созданный с уровнем параллелизма, владеет собственным пулом и должен быть закрыт.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (ParallelContentVisitorRunner runner = new ParallelContentVisitorRunner(8)) {
+ *         StorageFootprint footprint = runner.run(contentService.readAll(), StorageFootprintContentVisitor::new);
+ *     }
+ * </pre>
+ */
+@Slf4j
+public class ParallelContentVisitorRunner implements Closeable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int chunkSize;
+
+    /**
+     * Создает обходчик с собственным пулом.
+     *
+     * @param parallelism количество потоков пула
+     */
+    public ParallelContentVisitorRunner(int parallelism) {
+        this(new ForkJoinPool(parallelism), true, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Создает обходчик, использующий внешний пул. Пул не закрывается при закрытии обходчика.
+     *
+     * @param pool      пул, в котором выполняется обход
+     * @param chunkSize количество элементов, посещаемых одной задачей последовательно
+     */
+    public ParallelContentVisitorRunner(ForkJoinPool pool, int chunkSize) {
+        this(pool, false, chunkSize);
+    }
+
+    private ParallelContentVisitorRunner(ForkJoinPool pool, boolean ownsPool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Обходит набор контента и объединяет результаты посетителей рабочих потоков.
+     *
+     * @param contents контент для обхода; коллекция без произвольного доступа копируется в список
+     * @param visitors фабрика посетителей; вызывается один раз на каждый участвующий в обходе поток
+     * @param <R>      тип результата
+     * @return объединенный результат; для пустого набора — результат нового посетителя
+     */
+    public <R> R run(Collection<? extends Content> contents,
+                     Supplier<? extends AggregatingContentVisitor<R>> visitors) {
+        List<? extends Content> list = contents instanceof List<? extends Content> random && random instanceof RandomAccess
+                ? random
+                : new ArrayList<>(contents);
+
+        Map<Thread, AggregatingContentVisitor<R>> threadVisitors = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        pool.invoke(new ChunkedRangeTask(0, list.size(), chunkSize, (from, to) -> {
+            AggregatingContentVisitor<R> visitor = threadVisitors.computeIfAbsent(Thread.currentThread(),
+                    thread -> visitors.get());
+            for (int i = from; i < to; i++) {
+                list.get(i).acceptVisitor(visitor);
+            }
+        }));
+
+        AggregatingContentVisitor<R> first = null;
+        R result = null;
+        for (AggregatingContentVisitor<R> visitor : threadVisitors.values()) {
+            if (first == null) {
+                first = visitor;
+                result = visitor.getResult();
+            } else {
+                result = first.merge(result, visitor.getResult());
+            }
+        }
+        log.debug("Visited {} contents in {} ms with {} partial results", list.size(),
+                (System.nanoTime() - start) / 1_000_000, threadVisitors.size());
+        return first == null ? visitors.get().getResult() : result;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+}
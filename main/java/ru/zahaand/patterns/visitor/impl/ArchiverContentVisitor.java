@@ -3,8 +3,12 @@ package ru.zahaand.patterns.visitor.impl;
 import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.domain.impl.ImageContent;
 import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.model.Image;
 import ru.zahaand.patterns.visitor.ContentVisitor;
 
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
 /**
  * Класс {@code ArchiverContentVisitor} реализует интерфейс {@link ContentVisitor} для архивации контента.
  * Этот посетитель позволяет автоматически архивировать различные типы контента, сохраняя их в архивном формате.
@@ -13,18 +17,22 @@ import ru.zahaand.patterns.visitor.ContentVisitor;
  *
  * <h3>Основная функциональность:</h3>
  * <ul>
- *     <li><strong>Архивация контента</strong>: Для каждого типа контента создается архивный файл, содержащий исходный контент.</li>
+ *     <li><strong>Архивация контента</strong>: Каждый элемент контента записывается отдельным файлом в архив tar.gz:
+ *     текст — в {@code text/<id>.txt} в кодировке UTF-8, изображение — в {@code image/<id>.<формат>}.
+ *     Архив сжимается параллельно {@link ParallelTarGzWriter}.</li>
  * </ul>
  *
  * <h3>Пример использования:</h3>
  * <pre>
- *     ContentVisitor archiver = new ArchiverContentVisitor();
- *     Content textContent = new TextContent("Example text", user);
- *     Content imageContent = new ImageContent(ImageFormat.PNG, "EncodedImage", user);
+ *     try (ParallelTarGzWriter writer = ParallelTarGzWriter.open(Path.of("content.tar.gz"), 4)) {
+ *         ContentVisitor archiver = new ArchiverContentVisitor(writer);
+ *         Content textContent = new TextContent("Example text", user);
+ *         Content imageContent = new ImageContent(ImageFormat.PNG, "EncodedImage", user);
  *
- *     // Архивация всех типов контента
- *     archiver.visit(textContent);
- *     archiver.visit(imageContent);
+ *         // Архивация всех типов контента
+ *         archiver.visit(textContent);
+ *         archiver.visit(imageContent);
+ *     }
  * </pre>
  * <p>
  * В этом примере для каждого типа контента ({@link TextContent}, {@link ImageContent}) используется посетитель {@link ArchiverContentVisitor},
@@ -33,13 +41,30 @@ import ru.zahaand.patterns.visitor.ContentVisitor;
 @Slf4j
 public class ArchiverContentVisitor implements ContentVisitor {
 
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final ParallelTarGzWriter writer;
+
+    /**
+     * @param writer архив, в который записывается контент
+     */
+    public ArchiverContentVisitor(ParallelTarGzWriter writer) {
+        this.writer = writer;
+    }
+
     @Override
     public void visit(TextContent textContent) {
-        log.info("Text content archiving...");
+        log.debug("Text content archiving...");
+        byte[] text = textContent.getUtf8();
+        writer.addEntry("text/" + textContent.getId() + ".txt", text == null ? EMPTY : ByteBuffer.wrap(text));
     }
 
     @Override
     public void visit(ImageContent imageContent) {
-        log.info("Image content archiving...");
+        log.debug("Image content archiving...");
+        Image image = imageContent.getImage();
+        ByteBuffer content = image == null ? null : image.asByteBuffer();
+        String extension = image == null || image.getFormat() == null ? "bin" : image.getFormat().name().toLowerCase(Locale.ROOT);
+        writer.addEntry("image/" + imageContent.getId() + "." + extension, content == null ? EMPTY : content);
     }
 }
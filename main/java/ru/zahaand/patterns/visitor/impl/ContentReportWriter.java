@@ -0,0 +1,284 @@
+package ru.zahaand.patterns.visitor.impl;
+
+import ru.zahaand.patterns.domain.User;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.enums.ReportFormat;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Класс {@code ContentReportWriter} формирует отчет о контенте и записывает его в канал крупными блоками.
+ *
+ * <p>Строки отчета собираются в переиспользуемый буфер символов без {@code String.format}, а когда буфер
+ * заполняется, он кодируется в UTF-8 в переиспользуемый буфер байтов и записывается в канал одной операцией.
+ * Поэтому отчет о большом наборе контента не выполняет синхронизированную запись на каждый элемент.
+ *
+ * <p>Поддерживаются форматы {@link ReportFormat}: текст для чтения человеком, CSV с заголовком и NDJSON.
+ * Отсутствующие пользователь и контактные данные выводятся пустыми полями или {@code null}, а непарные суррогаты
+ * в контактных данных заменяются символом {@code ?}, как в {@link String#getBytes}.
+ * Экземпляр класса не потокобезопасен.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (ContentReportWriter report = ContentReportWriter.open(Path.of("report.csv"), ReportFormat.CSV)) {
+ *         ContentVisitor infoPrinter = new InfoPrinterContentVisitor(report);
+ *         contents.forEach(content -&gt; content.acceptVisitor(infoPrinter));
+ *     }
+ * </pre>
+ */
+public class ContentReportWriter implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "type,id,user_id,mobile_phone,email\n";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel sink;
+    private final boolean closeSink;
+    private final ReportFormat format;
+    private final int flushThreshold;
+    private final StringBuilder chars;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private boolean headerWritten;
+
+    /**
+     * @param sink       канал для записи отчета
+     * @param closeSink  закрывать ли канал при закрытии отчета
+     * @param format     формат отчета
+     * @param bufferSize размер буферов в символах и байтах
+     */
+    public ContentReportWriter(WritableByteChannel sink, boolean closeSink, ReportFormat format, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.sink = sink;
+        this.closeSink = closeSink;
+        this.format = format;
+        this.flushThreshold = bufferSize;
+        this.chars = new StringBuilder(bufferSize + 256);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Создает отчет в файле, заменяя существующий.
+     */
+    public static ContentReportWriter open(Path path, ReportFormat format) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new ContentReportWriter(channel, true, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Создает отчет в стандартном выводе. Стандартный вывод не закрывается при закрытии отчета.
+     */
+    public static ContentReportWriter toStdout(ReportFormat format) {
+        return new ContentReportWriter(Channels.newChannel(System.out), false, format,
+                DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Добавляет в отчет строку о контенте.
+     *
+     * @param type тип контента
+     * @param id   идентификатор контента
+     * @param user владелец контента или {@code null}
+     */
+    public void write(ContentType type, UUID id, User user) {
+        UUID userId = user == null ? null : user.getId();
+        String mobilePhone = user == null ? null : user.getMobilePhone();
+        String email = user == null ? null : user.getEmail();
+
+        switch (format) {
+            case TEXT -> {
+                chars.append(type).append(" content id: ");
+                appendUuid(id);
+                chars.append(".\nUser id: ");
+                appendUuid(userId);
+                chars.append(".\nUser contacts: ").append(mobilePhone == null ? "" : mobilePhone)
+                        .append(' ').append(email == null ? "" : email).append('\n');
+            }
+            case CSV -> {
+                if (!headerWritten) {
+                    chars.append(CSV_HEADER);
+                    headerWritten = true;
+                }
+                chars.append(type).append(',');
+                appendUuid(id);
+                chars.append(',');
+                appendUuid(userId);
+                chars.append(',');
+                appendCsv(mobilePhone);
+                chars.append(',');
+                appendCsv(email);
+                chars.append('\n');
+            }
+            case NDJSON -> {
+                chars.append("{\"type\":\"").append(type).append("\",\"id\":");
+                appendJsonUuid(id);
+                chars.append(",\"userId\":");
+                appendJsonUuid(userId);
+                chars.append(",\"mobilePhone\":");
+                appendJson(mobilePhone);
+                chars.append(",\"email\":");
+                appendJson(email);
+                chars.append("}\n");
+            }
+        }
+
+        if (chars.length() >= flushThreshold) {
+            drain();
+        }
+    }
+
+    /**
+     * Записывает накопленные строки в канал.
+     */
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            if (closeSink) {
+                sink.close();
+            }
+        }
+    }
+
+    private void drain() {
+        if (chars.isEmpty()) {
+            return;
+        }
+        CharBuffer in = CharBuffer.wrap(chars);
+        encoder.reset();
+        try {
+            CoderResult result;
+            do {
+                result = encoder.encode(in, bytes, true);
+                writeBytes();
+            } while (result.isOverflow());
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chars.setLength(0);
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            sink.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Добавляет идентификатор в каноническом виде без создания промежуточной строки.
+     */
+    private void appendUuid(UUID id) {
+        if (id == null) {
+            return;
+        }
+        appendHex(id.getMostSignificantBits() >>> 32, 8);
+        chars.append('-');
+        appendHex(id.getMostSignificantBits() >>> 16, 4);
+        chars.append('-');
+        appendHex(id.getMostSignificantBits(), 4);
+        chars.append('-');
+        appendHex(id.getLeastSignificantBits() >>> 48, 4);
+        chars.append('-');
+        appendHex(id.getLeastSignificantBits(), 12);
+    }
+
+    private void appendHex(long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            chars.append(HEX[(int) (value >>> shift) & 0xf]);
+        }
+    }
+
+    private void appendJsonUuid(UUID id) {
+        if (id == null) {
+            chars.append("null");
+            return;
+        }
+        chars.append('"');
+        appendUuid(id);
+        chars.append('"');
+    }
+
+    private void appendCsv(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            chars.append(value);
+            return;
+        }
+        chars.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                chars.append('"');
+            }
+            chars.append(c);
+        }
+        chars.append('"');
+    }
+
+    private void appendJson(String value) {
+        if (value == null) {
+            chars.append("null");
+            return;
+        }
+        chars.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> chars.append("\\\"");
+                case '\\' -> chars.append("\\\\");
+                case '\n' -> chars.append("\\n");
+                case '\r' -> chars.append("\\r");
+                case '\t' -> chars.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        chars.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                    } else {
+                        chars.append(c);
+                    }
+                }
+            }
+        }
+        chars.append('"');
+    }
+}
@@ -4,8 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import ru.zahaand.patterns.domain.User;
 import ru.zahaand.patterns.domain.impl.ImageContent;
 import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.enums.ReportFormat;
 import ru.zahaand.patterns.visitor.ContentVisitor;
 
+import java.util.UUID;
+
 /**
  * Класс {@code InfoPrinterContentVisitor} реализует интерфейс {@link ContentVisitor} для печати информации о контенте.
  * Этот посетитель позволяет получать детальную информацию о контенте в формате, удобном для чтения человеком.
@@ -15,7 +19,10 @@ import ru.zahaand.patterns.visitor.ContentVisitor;
  * <h3>Основная функциональность:</h3>
  * <ul>
  *     <li><strong>Печать информации о контенте</strong>: Для каждого типа контента выводится его идентификатор и информация о владельце.</li>
+ *     <li><strong>Отчет о большом наборе контента</strong>: Посетитель, созданный с {@link ContentReportWriter}, добавляет строки
+ *     в отчет в формате {@link ReportFormat}, а отчет записывается в файл или стандартный вывод крупными блоками.</li>
  * </ul>
+ * Контент без владельца или без контактных данных печатается с пустыми полями.
  *
  * <h3>Пример использования:</h3>
  * <pre>
@@ -34,35 +41,44 @@ import ru.zahaand.patterns.visitor.ContentVisitor;
 @Slf4j
 public class InfoPrinterContentVisitor implements ContentVisitor {
 
+    private final ContentReportWriter report;
+    private final boolean flushEachItem;
+
+    /**
+     * Создает посетителя, который печатает информацию о каждом элементе в стандартный вывод сразу после посещения.
+     */
+    public InfoPrinterContentVisitor() {
+        this.report = ContentReportWriter.toStdout(ReportFormat.TEXT);
+        this.flushEachItem = true;
+    }
+
+    /**
+     * Создает посетителя, который добавляет строки в отчет. Отчет записывается крупными блоками;
+     * вызывающий код закрывает его после посещения всех элементов.
+     *
+     * @param report отчет о контенте
+     */
+    public InfoPrinterContentVisitor(ContentReportWriter report) {
+        this.report = report;
+        this.flushEachItem = false;
+    }
+
     @Override
     public void visit(TextContent textContent) {
-        log.info("Text content info printing...");
-
-        User user = textContent.getUser();
-        System.out.printf("""
-                        TEXT content id: %s.
-                        User id: %s.
-                        User contacts: %s %s
-                        """,
-                textContent.getId(),
-                user.getId(),
-                user.getMobilePhone(),
-                user.getEmail());
+        log.debug("Text content info printing...");
+        print(ContentType.TEXT, textContent.getId(), textContent.getUser());
     }
 
     @Override
     public void visit(ImageContent imageContent) {
-        log.info("Image content info printing...");
+        log.debug("Image content info printing...");
+        print(ContentType.IMAGE, imageContent.getId(), imageContent.getUser());
+    }
 
-        User user = imageContent.getUser();
-        System.out.printf("""
-                        IMAGE content id: %s.
-                        User id: %s.
-                        User contacts: %s %s
-                        """,
-                imageContent.getId(),
-                user.getId(),
-                user.getMobilePhone(),
-                user.getEmail());
+    private void print(ContentType type, UUID id, User user) {
+        report.write(type, id, user);
+        if (flushEachItem) {
+            report.flush();
+        }
     }
 }
@@ -0,0 +1,317 @@
+package ru.zahaand.patterns.visitor.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Класс {@code ParallelTarGzWriter} записывает архив tar.gz, сжимая его части параллельно на нескольких ядрах.
+ *
+ * <p>Поток tar (заголовки записей по 512 байт, содержимое, выровненное до 512 байт, и два нулевых блока в конце)
+ * делится на блоки фиксированного размера. Каждый блок сжимается в отдельном потоке в самостоятельный член gzip,
+ * а сжатые члены записываются в канал строго по порядку. Последовательность членов gzip — корректный файл gzip,
+ * который читают {@code gzip}, {@code tar} и {@link java.util.zip.GZIPInputStream}. Так же работает {@code pigz}.
+ *
+ * <p>Одновременно сжимается не больше заданного количества блоков: когда окно заполнено, запись новых записей
+ * ждет записи самого старого блока в канал. Поэтому расход памяти ограничен размером окна и не зависит
+ * от количества и размера записей, а содержимое, отображенное в память, копируется в кучу по одному блоку.
+ *
+ * <p>Методы записи синхронизированы. Писатель владеет каналом и закрывает его при закрытии. Если сжатие или запись
+ * блока завершились ошибкой, архив уже нельзя дописать корректно: первая ошибка сохраняется и выбрасывается
+ * из всех последующих вызовов {@link #addEntry(String, ByteBuffer)} и {@link #close()}.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (ParallelTarGzWriter writer = ParallelTarGzWriter.open(Path.of("content.tar.gz"), 4)) {
+ *         writer.addEntry("text/readme.txt", ByteBuffer.wrap(bytes));
+ *     }
+ * </pre>
+ */
+@Slf4j
+public class ParallelTarGzWriter implements Closeable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int RECORD_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final int PREFIX_LENGTH = 155;
+    private static final long MAX_ENTRY_SIZE = 077777777777L;
+    private static final byte[] ZEROS = new byte[RECORD_SIZE];
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private final FileChannel channel;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final long modificationTime = System.currentTimeMillis() / 1000;
+    private final Deque<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockPosition;
+    private long entryCount;
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private boolean closed;
+    private RuntimeException failure;
+
+    /**
+     * Создает файл архива, заменяя существующий.
+     *
+     * @param path        путь к файлу архива
+     * @param parallelism количество потоков сжатия
+     */
+    public static ParallelTarGzWriter open(Path path, int parallelism) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new ParallelTarGzWriter(channel, parallelism, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param channel     канал, в который записывается архив
+     * @param parallelism количество потоков сжатия
+     * @param blockSize   размер несжатого блока, сжимаемого одной задачей
+     */
+    public ParallelTarGzWriter(FileChannel channel, int parallelism, int blockSize) {
+        if (parallelism <= 0 || blockSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("Parallelism must be positive and block size must be at least " + RECORD_SIZE);
+        }
+        this.channel = channel;
+        this.executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "tar-gz-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.blockSize = blockSize;
+        this.maxInFlight = parallelism * 2;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Добавляет в архив обычный файл.
+     *
+     * @param name    путь файла внутри архива
+     * @param content содержимое от текущей позиции до границы; позиция буфера не изменяется
+     * @throws IllegalArgumentException если путь или размер не помещаются в заголовок ustar
+     * @throws RuntimeException         если сжатие или запись одного из блоков архива завершились ошибкой
+     */
+    public synchronized void addEntry(String name, ByteBuffer content) {
+        checkFailure();
+        if (closed) {
+            throw new IllegalStateException("Archive writer is closed");
+        }
+        ByteBuffer data = content.duplicate();
+        write(ByteBuffer.wrap(header(name, data.remaining())));
+        int padding = (RECORD_SIZE - data.remaining() % RECORD_SIZE) % RECORD_SIZE;
+        write(data);
+        write(ByteBuffer.wrap(ZEROS, 0, padding));
+        entryCount++;
+    }
+
+    public synchronized long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return количество байтов несжатого потока tar, переданных на сжатие
+     */
+    public synchronized long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * @return количество сжатых байтов, записанных в канал
+     */
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Записывает окончание архива, дожидается сжатия и записи всех блоков и закрывает канал.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            checkFailure();
+            return;
+        }
+        closed = true;
+        try {
+            checkFailure();
+            write(ByteBuffer.wrap(ZEROS));
+            write(ByteBuffer.wrap(ZEROS));
+            submitBlock();
+            while (!inFlight.isEmpty()) {
+                writeCompleted();
+            }
+            log.info("Archive written: {} entries, {} -> {} bytes", entryCount, uncompressedBytes, compressedBytes);
+        } finally {
+            executor.shutdownNow();
+            channel.close();
+        }
+    }
+
+    private void write(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            int length = Math.min(data.remaining(), blockSize - blockPosition);
+            data.get(block, blockPosition, length);
+            blockPosition += length;
+            if (blockPosition == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    private void submitBlock() {
+        if (blockPosition == 0) {
+            return;
+        }
+        byte[] data = block;
+        int length = blockPosition;
+        uncompressedBytes += length;
+        inFlight.addLast(CompletableFuture.supplyAsync(() -> compress(data, length), executor));
+        block = new byte[blockSize];
+        blockPosition = 0;
+
+        while (inFlight.size() > maxInFlight) {
+            writeCompleted();
+        }
+    }
+
+    private void writeCompleted() {
+        try {
+            ByteBuffer member = inFlight.pollFirst().join();
+            compressedBytes += member.remaining();
+            while (member.hasRemaining()) {
+                channel.write(member);
+            }
+        } catch (CompletionException e) {
+            throw fail(e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new IllegalStateException("Archive block compression failed", e.getCause()));
+        } catch (IOException e) {
+            throw fail(new UncheckedIOException(e));
+        }
+    }
+
+    /**
+     * Запоминает первую ошибку: блок, на котором она произошла, потерян, и архив не может быть завершен корректно.
+     */
+    private RuntimeException fail(RuntimeException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        return e;
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Сжимает блок в самостоятельный член gzip.
+     */
+    private static ByteBuffer compress(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+
+        Deflater deflater = DEFLATERS.get();
+        byte[] out = new byte[GZIP_HEADER.length + length + length / 1000 * 5 + 64];
+        System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER.length);
+        int position = GZIP_HEADER.length;
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (position == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                position += deflater.deflate(out, position, out.length - position);
+            }
+        } finally {
+            deflater.reset();
+        }
+
+        ByteBuffer member = ByteBuffer.allocate(position + 8).order(ByteOrder.LITTLE_ENDIAN);
+        member.put(out, 0, position).putInt((int) crc.getValue()).putInt(length);
+        return member.flip();
+    }
+
+    private byte[] header(String name, long size) {
+        if (size > MAX_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Entry is too large for a ustar archive: " + name);
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] prefixBytes = new byte[0];
+        if (nameBytes.length > NAME_LENGTH) {
+            int split = name.lastIndexOf('/', name.length() - 2);
+            if (split > 0) {
+                prefixBytes = name.substring(0, split).getBytes(StandardCharsets.UTF_8);
+                nameBytes = name.substring(split + 1).getBytes(StandardCharsets.UTF_8);
+            }
+            if (nameBytes.length > NAME_LENGTH || prefixBytes.length > PREFIX_LENGTH) {
+                throw new IllegalArgumentException("Entry name is too long for a ustar archive: " + name);
+            }
+        }
+
+        byte[] header = new byte[RECORD_SIZE];
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, modificationTime);
+        header[156] = '0';
+        putAscii(header, 257, "ustar\0");
+        putAscii(header, 263, "00");
+        System.arraycopy(prefixBytes, 0, header, 345, prefixBytes.length);
+
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        putOctal(header, 148, 7, checksum);
+        header[155] = ' ';
+        return header;
+    }
+
+    /**
+     * Записывает число восьмеричными цифрами с ведущими нулями и завершающим нулевым байтом.
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        int padding = digits - octal.length();
+        for (int i = 0; i < padding; i++) {
+            header[offset + i] = '0';
+        }
+        putAscii(header, offset + padding, octal);
+        header[offset + digits] = 0;
+    }
+
+    private static void putAscii(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,173 @@
+package ru.zahaand.patterns.visitor.impl;
+
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.enums.ImageFormat;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Класс {@code StorageFootprint} содержит статистику хранения набора контента: количество элементов и объем
+ * в байтах по типам и по пользователям, распределение длины текстов и состав форматов изображений.
+ *
+ * <p>Длины текстов раскладываются по корзинам степеней двойки: корзина {@code i} содержит тексты длиной
+ * от 2<sup>i-1</sup> до 2<sup>i</sup> - 1 символов, корзина {@code 0} — пустые тексты.
+ *
+ * <p>Экземпляр заполняется одним потоком и не потокобезопасен. Частичные результаты потоков объединяются
+ * методом {@link #merge(StorageFootprint)}.
+ */
+public final class StorageFootprint {
+
+    private static final int LENGTH_BUCKETS = Integer.SIZE + 1;
+
+    private final Map<ContentType, Totals> byType = new EnumMap<>(ContentType.class);
+    private final Map<UUID, Totals> byUser = new HashMap<>();
+    private final Map<ImageFormat, Long> imageFormats = new EnumMap<>(ImageFormat.class);
+    private final long[] textLengths = new long[LENGTH_BUCKETS];
+
+    /**
+     * Учитывает элемент контента.
+     *
+     * @param type   тип контента
+     * @param userId идентификатор владельца или {@code null}
+     * @param bytes  объем данных элемента в байтах
+     */
+    void add(ContentType type, UUID userId, long bytes) {
+        byType.computeIfAbsent(type, t -> new Totals()).add(1, bytes);
+        byUser.computeIfAbsent(userId, id -> new Totals()).add(1, bytes);
+    }
+
+    void addTextLength(int length) {
+        textLengths[Integer.SIZE - Integer.numberOfLeadingZeros(length)]++;
+    }
+
+    void addImageFormat(ImageFormat format) {
+        imageFormats.merge(format, 1L, Long::sum);
+    }
+
+    /**
+     * Добавляет к этой статистике статистику другого набора контента.
+     *
+     * @return эта статистика
+     */
+    public StorageFootprint merge(StorageFootprint other) {
+        other.byType.forEach((type, totals) -> byType.computeIfAbsent(type, t -> new Totals()).add(totals));
+        other.byUser.forEach((userId, totals) -> byUser.computeIfAbsent(userId, id -> new Totals()).add(totals));
+        other.imageFormats.forEach((format, count) -> imageFormats.merge(format, count, Long::sum));
+        for (int i = 0; i < LENGTH_BUCKETS; i++) {
+            textLengths[i] += other.textLengths[i];
+        }
+        return this;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (Totals totals : byType.values()) {
+            count += totals.count;
+        }
+        return count;
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (Totals totals : byType.values()) {
+            bytes += totals.bytes;
+        }
+        return bytes;
+    }
+
+    public Map<ContentType, Totals> getByType() {
+        return Collections.unmodifiableMap(byType);
+    }
+
+    /**
+     * @return статистика по идентификаторам пользователей; ключ {@code null} — контент без владельца
+     */
+    public Map<UUID, Totals> getByUser() {
+        return Collections.unmodifiableMap(byUser);
+    }
+
+    /**
+     * @return количество изображений по форматам; изображения без формата не учитываются
+     */
+    public Map<ImageFormat, Long> getImageFormats() {
+        return Collections.unmodifiableMap(imageFormats);
+    }
+
+    /**
+     * @return копия распределения длины текстов по корзинам степеней двойки
+     */
+    public long[] getTextLengthHistogram() {
+        return textLengths.clone();
+    }
+
+    /**
+     * @param percentile перцентиль от 0 до 100
+     * @return верхняя граница корзины, в которую попадает перцентиль длины текстов, или {@code 0},
+     * если текстов не было
+     */
+    public long getTextLengthPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100]");
+        }
+        long count = 0;
+        for (long bucket : textLengths) {
+            count += bucket;
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < LENGTH_BUCKETS; i++) {
+            seen += textLengths[i];
+            if (seen >= rank) {
+                return (1L << i) - 1;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageFootprint{count=" + getCount() + ", bytes=" + getBytes() + ", byType=" + byType
+                + ", users=" + byUser.size() + ", imageFormats=" + imageFormats
+                + ", textLengthP50=" + getTextLengthPercentile(50) + ", textLengthP99=" + getTextLengthPercentile(99)
+                + '}';
+    }
+
+    /**
+     * Количество элементов и их объем в байтах.
+     */
+    public static final class Totals {
+
+        private long count;
+        private long bytes;
+
+        private void add(long count, long bytes) {
+            this.count += count;
+            this.bytes += bytes;
+        }
+
+        private void add(Totals other) {
+            add(other.count, other.bytes);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count + ", bytes=" + bytes + '}';
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.zahaand.patterns.visitor.impl;
+
+import ru.zahaand.patterns.domain.User;
+import ru.zahaand.patterns.domain.impl.ImageContent;
+import ru.zahaand.patterns.domain.impl.TextContent;
+import ru.zahaand.patterns.enums.ContentType;
+import ru.zahaand.patterns.model.Image;
+import ru.zahaand.patterns.visitor.AggregatingContentVisitor;
+import ru.zahaand.patterns.visitor.ParallelContentVisitorRunner;
+
+import java.util.UUID;
+
+/**
+ * Класс {@code StorageFootprintContentVisitor} реализует интерфейс {@link AggregatingContentVisitor} для подсчета
+ * объема хранения контента: количества элементов и байтов по типам и пользователям, распределения длины текстов
+ * и состава форматов изображений ({@link StorageFootprint}).
+ *
+ * <p>Объем текста — размер в кодировке UTF-8, который вычисляется без кодирования; объем изображения — размер
+ * его содержимого. Посетитель не читает содержимое изображений и не распаковывает сжатые тексты в строки.
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ *     try (ParallelContentVisitorRunner runner = new ParallelContentVisitorRunner(8)) {
+ *         StorageFootprint footprint = runner.run(contents, StorageFootprintContentVisitor::new);
+ *         log.info("Storage footprint: {}", footprint);
+ *     }
+ * </pre>
+ *
+ * @see ParallelContentVisitorRunner
+ */
+public class StorageFootprintContentVisitor implements AggregatingContentVisitor<StorageFootprint> {
+
+    private final StorageFootprint footprint = new StorageFootprint();
+
+    @Override
+    public void visit(TextContent textContent) {
+        footprint.add(ContentType.TEXT, userId(textContent.getUser()), textContent.getUtf8Length());
+        footprint.addTextLength(textContent.length());
+    }
+
+    @Override
+    public void visit(ImageContent imageContent) {
+        Image image = imageContent.getImage();
+        footprint.add(ContentType.IMAGE, userId(imageContent.getUser()), image == null ? 0 : image.getSize());
+        if (image != null && image.getFormat() != null) {
+            footprint.addImageFormat(image.getFormat());
+        }
+    }
+
+    @Override
+    public StorageFootprint getResult() {
+        return footprint;
+    }
+
+    @Override
+    public StorageFootprint merge(StorageFootprint left, StorageFootprint right) {
+        return left.merge(right);
+    }
+
+    private static UUID userId(User user) {
+        return user == null ? null : user.getId();
+    }
+}